@@ -0,0 +1,474 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl;
+
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.base.io.format.IFormat;
+import de.featjar.base.io.input.AInputMapper;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.FeatureTree;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.connective.Reference;
+import de.featjar.formula.structure.predicate.False;
+import de.featjar.formula.structure.predicate.Literal;
+import de.featjar.formula.structure.predicate.True;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses and writes feature models in a compact binary format, which is much faster to load than UVL text.
+ * The format stores the feature tree and the constraints, but no feature attributes or descriptions,
+ * so only models without them round-trip between this format and {@link UVLFeatureModelFormat}.
+ * <ul>
+ * <li>A table of all feature and variable names, each stored once and referenced by index.</li>
+ * <li>The feature tree in pre-order. Each feature stores its name index, flags for abstract and type,
+ * the bounds of its feature cardinality, and its non-empty groups, each with its bounds and number of children.</li>
+ * <li>Each constraint as a prefix-encoded array of operators and literals.</li>
+ * </ul>
+ * All integers are variable-length encoded, see {@link VarInts}.
+ */
+public class BinaryFeatureModelFormat implements IFormat<IFeatureModel> {
+
+    private static final int MAGIC = 0x46424d46;
+    private static final int VERSION = 2;
+
+    private static final int ABSTRACT = 1;
+    private static final int TYPE_SHIFT = 1;
+    private static final Class<?>[] TYPES = {Boolean.class, Integer.class, Double.class, String.class};
+
+    private static final int POSITIVE_LITERAL = 0;
+    private static final int NEGATIVE_LITERAL = 1;
+    private static final int NOT = 2;
+    private static final int AND = 3;
+    private static final int OR = 4;
+    private static final int IMPLIES = 5;
+    private static final int BI_IMPLIES = 6;
+    private static final int TRUE = 7;
+    private static final int FALSE = 8;
+
+    private static class Slot {
+        private final IFeatureTree parent;
+        private final int groupID;
+
+        private Slot(IFeatureTree parent, int groupID) {
+            this.parent = parent;
+            this.groupID = groupID;
+        }
+    }
+
+    private static class Frame {
+        private final int operator;
+        private final List<IFormula> children;
+        private final int arity;
+
+        private Frame(int operator, int arity) {
+            this.operator = operator;
+            this.arity = arity;
+            children = new ArrayList<>(arity);
+        }
+    }
+
+    @Override
+    public Result<IFeatureModel> parse(AInputMapper inputMapper) {
+        try {
+            // the input is read for this format only, so buffering cannot take bytes from another reader
+            return parse(new BufferedInputStream(inputMapper.get().getInputStream()));
+        } catch (Exception e) {
+            return Result.empty(e);
+        }
+    }
+
+    /**
+     * Parses a feature model from an input stream. The input stream is neither buffered nor closed,
+     * so it is read up to the end of the feature model and callers should buffer it themselves.
+     * @param inputStream The input stream.
+     * @return The parsed feature model.
+     */
+    public Result<IFeatureModel> parse(InputStream inputStream) {
+        try {
+            DataInputStream in = new DataInputStream(inputStream);
+            if (in.readInt() != MAGIC) {
+                return Result.empty(new Problem("Not a binary feature model", Problem.Severity.ERROR));
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                return Result.empty(new Problem("Unsupported version " + version, Problem.Severity.ERROR));
+            }
+
+            String[] names = new String[VarInts.read(in)];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = in.readUTF();
+            }
+
+            IFeatureModel featureModel = new FeatureModel();
+            int rootCount = VarInts.read(in);
+            for (int i = 0; i < rootCount; i++) {
+                readFeatureTree(in, featureModel, names);
+            }
+            int constraintCount = VarInts.read(in);
+            for (int i = 0; i < constraintCount; i++) {
+                featureModel.mutate().addConstraint(readFormula(in, names));
+            }
+            return Result.of(featureModel);
+        } catch (Exception e) {
+            return Result.empty(e);
+        }
+    }
+
+    private void readFeatureTree(DataInputStream in, IFeatureModel featureModel, String[] names)
+            throws IOException {
+        LinkedList<Slot> stack = new LinkedList<>();
+        stack.push(new Slot(null, 0));
+        while (!stack.isEmpty()) {
+            Slot slot = stack.pop();
+            IFeature feature = featureModel.mutate().addFeature(names[VarInts.read(in)]);
+            int flags = in.readUnsignedByte();
+            feature.mutate().setAbstract((flags & ABSTRACT) != 0);
+            int type = flags >>> TYPE_SHIFT;
+            if (type >= TYPES.length) {
+                throw new IOException("Unknown type " + type + " of feature " + feature.getName().orElse(""));
+            }
+            feature.mutate().setType(TYPES[type]);
+
+            IFeatureTree tree;
+            if (slot.parent == null) {
+                tree = featureModel.mutate().addFeatureTreeRoot(feature);
+            } else {
+                tree = slot.parent.mutate().addFeatureBelow(feature);
+                tree.mutate().setGroupID(slot.groupID);
+            }
+            int featureLowerBound = VarInts.read(in);
+            int featureUpperBound = VarInts.readSigned(in);
+            tree.mutate()
+                    .setFeatureRange(
+                            featureUpperBound < 0
+                                    ? Range.atLeast(featureLowerBound)
+                                    : Range.of(featureLowerBound, featureUpperBound));
+
+            int groupCount = VarInts.read(in);
+            List<Slot> children = new ArrayList<>();
+            for (int i = 0; i < groupCount; i++) {
+                int lowerBound = VarInts.read(in);
+                int upperBound = VarInts.readSigned(in);
+                int groupID = tree.getGroups().size();
+                tree.mutate()
+                        .addGroup(upperBound < 0 ? Range.atLeast(lowerBound) : Range.of(lowerBound, upperBound));
+                int childCount = VarInts.read(in);
+                for (int j = 0; j < childCount; j++) {
+                    children.add(new Slot(tree, groupID));
+                }
+            }
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+    }
+
+    private IFormula readFormula(DataInputStream in, String[] names) throws IOException {
+        LinkedList<Frame> stack = new LinkedList<>();
+        while (true) {
+            int operator = in.readUnsignedByte();
+            IFormula formula;
+            switch (operator) {
+                case POSITIVE_LITERAL:
+                    formula = new Literal(names[VarInts.read(in)]);
+                    break;
+                case NEGATIVE_LITERAL:
+                    formula = new Literal(false, names[VarInts.read(in)]);
+                    break;
+                case TRUE:
+                    formula = True.INSTANCE;
+                    break;
+                case FALSE:
+                    formula = False.INSTANCE;
+                    break;
+                case NOT:
+                    stack.push(new Frame(operator, 1));
+                    continue;
+                case IMPLIES:
+                case BI_IMPLIES:
+                    stack.push(new Frame(operator, 2));
+                    continue;
+                case AND:
+                case OR:
+                    stack.push(new Frame(operator, VarInts.read(in)));
+                    if (stack.peek().arity > 0) {
+                        continue;
+                    }
+                    formula = null;
+                    break;
+                default:
+                    throw new IOException("Unknown operator " + operator);
+            }
+            // complete all operators whose last operand has been read
+            while (true) {
+                if (formula != null) {
+                    if (stack.isEmpty()) {
+                        return formula;
+                    }
+                    stack.peek().children.add(formula);
+                }
+                Frame frame = stack.peek();
+                if (frame == null || frame.children.size() < frame.arity) {
+                    break;
+                }
+                stack.pop();
+                formula = createFormula(frame);
+            }
+        }
+    }
+
+    private static IFormula createFormula(Frame frame) {
+        switch (frame.operator) {
+            case NOT:
+                return new Not(frame.children.get(0));
+            case AND:
+                return new And(frame.children);
+            case OR:
+                return new Or(frame.children);
+            case IMPLIES:
+                return new Implies(frame.children.get(0), frame.children.get(1));
+            case BI_IMPLIES:
+                return new BiImplies(frame.children.get(0), frame.children.get(1));
+            default:
+                throw new IllegalStateException(String.valueOf(frame.operator));
+        }
+    }
+
+    /**
+     * Writes a feature model to an output stream. The output stream is not closed.
+     * @param featureModel The feature model.
+     * @param outputStream The output stream.
+     * @return All problems that occurred while writing.
+     * @throws IOException If the output stream fails.
+     */
+    public List<Problem> write(IFeatureModel featureModel, OutputStream outputStream) throws IOException {
+        List<Problem> problems = new ArrayList<>();
+        Map<String, Integer> names = new LinkedHashMap<>();
+        List<IFeatureTree> roots = featureModel.getRoots();
+        for (IFeatureTree root : roots) {
+            collectNames(root, names);
+        }
+        List<IFormula> constraints = new ArrayList<>();
+        for (IConstraint constraint : featureModel.getConstraints()) {
+            if (collectNames(constraint.getFormula(), names)) {
+                constraints.add(constraint.getFormula());
+            } else {
+                problems.add(new Problem(
+                        "Constraint " + constraint.getFormula() + " cannot be expressed in UVL and is skipped.",
+                        Problem.Severity.ERROR));
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        VarInts.write(out, names.size());
+        for (String name : names.keySet()) {
+            out.writeUTF(name);
+        }
+        VarInts.write(out, roots.size());
+        for (IFeatureTree root : roots) {
+            writeFeatureTree(out, root, names, problems);
+        }
+        VarInts.write(out, constraints.size());
+        for (IFormula constraint : constraints) {
+            writeFormula(out, constraint, names);
+        }
+        out.flush();
+        return problems;
+    }
+
+    private static void collectNames(IFeatureTree root, Map<String, Integer> names) {
+        LinkedList<IFeatureTree> stack = new LinkedList<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            IFeatureTree node = stack.pop();
+            names.putIfAbsent(node.getFeature().getName().orElse(""), names.size());
+            List<? extends IFeatureTree> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+    }
+
+    private static boolean collectNames(IExpression formula, Map<String, Integer> names) {
+        LinkedList<IExpression> stack = new LinkedList<>();
+        stack.push(formula);
+        while (!stack.isEmpty()) {
+            IExpression expression = stack.pop();
+            if (expression instanceof Literal) {
+                names.putIfAbsent(expression.getChildren().get(0).getName(), names.size());
+            } else if (expression instanceof Reference
+                    || expression instanceof Not
+                    || expression instanceof And
+                    || expression instanceof Or
+                    || expression instanceof Implies
+                    || expression instanceof BiImplies) {
+                for (IExpression child : expression.getChildren()) {
+                    stack.push(child);
+                }
+            } else if (!(expression instanceof True || expression instanceof False)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeFeatureTree(
+            DataOutputStream out, IFeatureTree root, Map<String, Integer> names, List<Problem> problems)
+            throws IOException {
+        LinkedList<IFeatureTree> stack = new LinkedList<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            IFeatureTree node = stack.pop();
+            IFeature feature = node.getFeature();
+            VarInts.write(out, names.get(feature.getName().orElse("")));
+            int flags = feature.isAbstract() ? ABSTRACT : 0;
+            int type = 0;
+            while (type < TYPES.length && TYPES[type] != feature.getType()) {
+                type++;
+            }
+            if (type < TYPES.length) {
+                flags |= type << TYPE_SHIFT;
+            } else {
+                problems.add(new Problem(
+                        "Type " + feature.getType() + " of feature " + feature.getName().orElse("")
+                                + " cannot be stored and is replaced by " + TYPES[0].getSimpleName() + ".",
+                        Problem.Severity.ERROR));
+            }
+            out.writeByte(flags);
+            VarInts.write(out, node.getFeatureCardinalityLowerBound());
+            VarInts.writeSigned(
+                    out, node.getFeatureCardinalityUpperBound() < 0 ? -1 : node.getFeatureCardinalityUpperBound());
+
+            List<FeatureTree.Group> groups = node.getGroups();
+            int groupCount = 0;
+            for (int i = 0; i < groups.size(); i++) {
+                if (!node.getGroupChildren(i).isEmpty()) {
+                    groupCount++;
+                }
+            }
+            VarInts.write(out, groupCount);
+            List<IFeatureTree> children = new ArrayList<>();
+            for (int i = 0; i < groups.size(); i++) {
+                List<IFeatureTree> groupChildren = node.getGroupChildren(i);
+                if (groupChildren.isEmpty()) {
+                    continue;
+                }
+                FeatureTree.Group group = groups.get(i);
+                VarInts.write(out, group.getLowerBound());
+                VarInts.writeSigned(out, group.getUpperBound() < 0 ? -1 : group.getUpperBound());
+                VarInts.write(out, groupChildren.size());
+                children.addAll(groupChildren);
+            }
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+    }
+
+    private static void writeFormula(DataOutputStream out, IFormula formula, Map<String, Integer> names)
+            throws IOException {
+        LinkedList<IExpression> stack = new LinkedList<>();
+        stack.push(formula);
+        while (!stack.isEmpty()) {
+            IExpression expression = stack.pop();
+            if (expression instanceof Reference) {
+                stack.push(expression.getChildren().get(0));
+                continue;
+            }
+            if (expression instanceof Literal) {
+                out.writeByte(((Literal) expression).isPositive() ? POSITIVE_LITERAL : NEGATIVE_LITERAL);
+                VarInts.write(out, names.get(expression.getChildren().get(0).getName()));
+                continue;
+            } else if (expression instanceof True) {
+                out.writeByte(TRUE);
+                continue;
+            } else if (expression instanceof False) {
+                out.writeByte(FALSE);
+                continue;
+            } else if (expression instanceof Not) {
+                out.writeByte(NOT);
+            } else if (expression instanceof And) {
+                out.writeByte(AND);
+                VarInts.write(out, expression.getChildren().size());
+            } else if (expression instanceof Or) {
+                out.writeByte(OR);
+                VarInts.write(out, expression.getChildren().size());
+            } else if (expression instanceof Implies) {
+                out.writeByte(IMPLIES);
+            } else {
+                out.writeByte(BI_IMPLIES);
+            }
+            List<? extends IExpression> children = expression.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsParse() {
+        return true;
+    }
+
+    /**
+     * Binary content cannot be serialized to a string, use {@link #write(IFeatureModel, OutputStream)} instead.
+     * @return {@code false}
+     */
+    @Override
+    public boolean supportsSerialize() {
+        return false;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "fmb";
+    }
+
+    @Override
+    public String getName() {
+        return "Binary Feature Model";
+    }
+}
@@ -21,40 +21,60 @@
 package de.featjar.feature.model.io.uvl;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.Test;
 
-import de.featjar.analysis.sat4j.computation.ComputeAtomicSetsSAT4J;
 import de.featjar.analysis.sat4j.computation.ComputeContradictingClauses;
-import de.featjar.analysis.sat4j.computation.ComputeCoreSAT4J;
 import de.featjar.analysis.sat4j.computation.ComputeIndeterminateSat4J;
 import de.featjar.analysis.sat4j.computation.ComputeRedundantClausesSat4J;
-import de.featjar.analysis.sat4j.computation.ComputeSatisfiableSAT4J;
-import de.featjar.analysis.sat4j.computation.ComputeSolutionCountSAT4J;
-import de.featjar.analysis.sat4j.computation.ComputeSolutionsSAT4J;
 
 import de.featjar.base.FeatJAR;
 import de.featjar.base.computation.Computations;
+import de.featjar.base.data.Problem;
 import de.featjar.base.data.Result;
-import de.featjar.base.io.IO;
 
 import de.featjar.feature.model.IFeatureModel;
 import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
-import de.featjar.feature.model.transformer.ComputeFormula;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisBudget;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisMetrics;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisReport;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisReportWriter;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisScheduler;
+import de.featjar.feature.model.io.uvl.analysis.ClauseListCache;
+import de.featjar.feature.model.io.uvl.analysis.ClauseListPipeline;
+import de.featjar.feature.model.io.uvl.analysis.ConstraintEncoding;
+import de.featjar.feature.model.io.uvl.analysis.DDNNF;
+import de.featjar.feature.model.io.uvl.analysis.DDNNFCompiler;
+import de.featjar.feature.model.io.uvl.analysis.SolutionEnumerator;
+import de.featjar.feature.model.io.uvl.analysis.SolverSession;
 
 import de.featjar.formula.VariableMap;
 import de.featjar.formula.assignment.BooleanAssignment;
 import de.featjar.formula.assignment.BooleanAssignmentList;
 import de.featjar.formula.assignment.BooleanClauseList;
-import de.featjar.formula.assignment.BooleanSolutionList;
+import de.featjar.formula.assignment.BooleanSolution;
 import de.featjar.formula.assignment.ComputeBooleanClauseList;
-import de.featjar.formula.computation.ComputeCNFFormula;
-import de.featjar.formula.computation.ComputeNNFFormula;
 
 /* Runs essential SAT4J analyses for a Feature-Model
  * 
+ * Satisfiability, core and dead features and atomic sets are answered by queries on one SolverSession, 
+ * which loads the clauses once and is shared by these analyses (so they run one after another). 
+ * Indeterminate and contradicting clauses are still computed by ComputeIndeterminateSat4J and 
+ * ComputeContradictingClauses, which each load the clauses into a fresh solver, as they need to 
+ * duplicate or remove clauses, which assumptions on a shared solver cannot express.
  * 
  * @author Manuel Dittrich
  * @author Malcolm Schulz
@@ -63,63 +83,343 @@ import de.featjar.formula.computation.ComputeNNFFormula;
 
 public class ComputeAnalysis{
 	
-	public void runAnalysis(ComputeBooleanClauseList cnf) {
-
-        	BooleanClauseList clauseList = cnf.compute();
-        	VariableMap variables = clauseList.getVariableMap();
-        	
-        	boolean isSatisfiable = satisfiableAnalysis(clauseList);
-        	if (isSatisfiable) {
-            	indeterminantClausesAnalysis(cnf, variables);
-    			contradictingClausesAnalysis(clauseList, variables);
-    			coreFeatureAnalysis(clauseList, variables);
-    			possibleSolutionAnalysis(clauseList, variables);
-    			atomicSetsAnalysis(cnf, variables);
-    			
-    			// TODO: Fix redundant analysis
-    			//redundantFeatureAnalysis(clauseList, variables);
-        	}
-        	else {
-        		FeatJAR.log().message("Clauses are not satisfiable, analysis will not proceed.");
-        	}
-	}
-
-	private void atomicSetsAnalysis(ComputeBooleanClauseList clauseList, VariableMap variables) {
-		FeatJAR.log().message("Running compute atomic sets analysis");
-		BooleanAssignmentList atomics = clauseList
-				.map(ComputeAtomicSetsSAT4J::new)
-				.compute();
-		if (atomics.size() <= 0) {
-			FeatJAR.log().message('\n' + "No atomic sets found!");
+	/**
+	 * The system property that enables the clause list cache of {@link #main(String[])} in the given directory.
+	 */
+	public static final String CACHE_DIRECTORY_PROPERTY = "featjar.uvl.cache";
+	/**
+	 * The system property that sets the maximum size of the clause list cache in bytes.
+	 */
+	public static final String CACHE_SIZE_PROPERTY = "featjar.uvl.cache.size";
+	public static final long DEFAULT_CACHE_SIZE = 256L * 1024 * 1024;
+	/**
+	 * The system property that sets the {@link ConstraintEncoding} of cross-tree constraints in {@link #main(String[])}.
+	 */
+	public static final String CONSTRAINT_ENCODING_PROPERTY = "featjar.uvl.constraintEncoding";
+	/**
+	 * The system property that sets the file {@link #main(String[])} writes the report to.
+	 * Files ending with {@code .csv} are written as CSV, all others as JSON.
+	 */
+	public static final String REPORT_FILE_PROPERTY = "featjar.uvl.report";
+	/**
+	 * The name of the measurement of parsing in {@link #runAnalysis(Path)}.
+	 */
+	public static final String PARSE_STAGE = "parse";
+	/**
+	 * The system property that sets the time budget of each analysis in milliseconds.
+	 */
+	public static final String TIMEOUT_PROPERTY = "featjar.uvl.timeout";
+	/**
+	 * The system property that sets the number of bytes each analysis may allocate.
+	 */
+	public static final String MEMORY_BUDGET_PROPERTY = "featjar.uvl.memory";
+	
+	private final int parallelism;
+	private long solutionLimit = Long.MAX_VALUE;
+	private long solutionTimeoutMillis = 0;
+	private Consumer<BooleanSolution> solutionSink;
+	private ConstraintEncoding constraintEncoding = ConstraintEncoding.DISTRIBUTIVE;
+	private Path reportFile;
+	private AnalysisReportWriter.Format reportFormat;
+	private long analysisTimeoutMillis = 0;
+	private long analysisMaxAllocatedBytes = 0;
+	
+	public ComputeAnalysis() {
+		this(1);
+	}
+	
+	/**
+	 * @param parallelism The maximum number of analyses that run concurrently, each on its own solver instance.
+	 */
+	public ComputeAnalysis(int parallelism) {
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Bounds the enumeration of solutions.
+	 * @param limit The maximum number of enumerated solutions.
+	 * @param timeoutMillis The maximum time for the enumeration in milliseconds, or {@code 0} for no timeout.
+	 */
+	public void setSolutionBounds(long limit, long timeoutMillis) {
+		this.solutionLimit = limit;
+		this.solutionTimeoutMillis = timeoutMillis;
+	}
+	
+	/**
+	 * Sets the sink that receives each enumerated solution as soon as it is found.
+	 * The next solution is computed only after the sink has returned. By default, solutions are logged.
+	 */
+	public void setSolutionSink(Consumer<BooleanSolution> solutionSink) {
+		this.solutionSink = solutionSink;
+	}
+	
+	/**
+	 * Sets how cross-tree constraints are transformed into clauses.
+	 * Auxiliary variables of the {@link ConstraintEncoding#TSEITIN} encoding are omitted from the logged results.
+	 */
+	public void setConstraintEncoding(ConstraintEncoding constraintEncoding) {
+		this.constraintEncoding = constraintEncoding;
+	}
+	
+	/**
+	 * Streams each report to the given file instead of logging the computed features.
+	 * Only the number of features of each result is logged then.
+	 * @param reportFile The file, which is overwritten by each analysis, or {@code null} to log all results.
+	 * @param reportFormat The format of the report.
+	 */
+	public void setReportOutput(Path reportFile, AnalysisReportWriter.Format reportFormat) {
+		this.reportFile = reportFile;
+		this.reportFormat = reportFormat;
+	}
+	
+	/**
+	 * Bounds each analysis. Analyses that check their budget (satisfiability, core and dead features, atomic sets,
+	 * solutions, solution count) stop and report partial results, e.g., the solutions found so far or, instead of the
+	 * solution count, the number of enumerated solutions as lower bound. Other analyses are abandoned.
+	 * @param timeoutMillis The maximum time of each analysis in milliseconds, or {@code 0} for no timeout.
+	 * @param maxAllocatedBytes The maximum number of bytes each analysis allocates, or {@code 0} for no limit.
+	 */
+	public void setBudget(long timeoutMillis, long maxAllocatedBytes) {
+		this.analysisTimeoutMillis = timeoutMillis;
+		this.analysisMaxAllocatedBytes = maxAllocatedBytes;
+	}
+	
+	/**
+	 * Runs all analyses of the feature model on the common pool.
+	 * @see #submitAnalysis(IFeatureModel, Executor)
+	 */
+	public CompletableFuture<AnalysisReport> submitAnalysis(IFeatureModel featureModel) {
+		return submitAnalysis(featureModel, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Runs all analyses of the feature model asynchronously.
+	 * Cancelling the returned future cancels all running analyses, which stop cooperatively.
+	 */
+	public CompletableFuture<AnalysisReport> submitAnalysis(IFeatureModel featureModel, Executor executor) {
+		AnalysisScheduler scheduler = createScheduler();
+		CompletableFuture<AnalysisReport> future = 
+				CompletableFuture.supplyAsync(() -> runAnalysis(featureModel, null, scheduler), executor);
+		future.whenComplete((report, e) -> {
+			if (e instanceof CancellationException) {
+				scheduler.cancel();
+			}
+		});
+		return future;
+	}
+	
+	/**
+	 * Converts the feature model into a clause list exactly once and runs all analyses on it.
+	 */
+	public AnalysisReport runAnalysis(IFeatureModel featureModel) {
+		return runAnalysis(featureModel, null, createScheduler());
+	}
+	
+	private AnalysisReport runAnalysis(IFeatureModel featureModel, SymbolTable symbols, AnalysisScheduler scheduler) {
+		ClauseListPipeline pipeline = new ClauseListPipeline(featureModel, constraintEncoding, symbols);
+		BooleanClauseList clauseList = pipeline.getClauseList();
+		pipeline.getStageNanos().forEach((stage, nanos) -> 
+				FeatJAR.log().message(String.format("Computed %s in %.3f s", stage, nanos / 1_000_000_000.0)));
+		AnalysisReport report = analyze(clauseList, scheduler);
+		report.getMetrics().putAll(pipeline.getMetrics());
+		pipeline.getStageNanos().keySet().forEach(report::addStage);
+		logMetrics(report);
+		writeReport(report);
+		return report;
+	}
+	
+	/**
+	 * Parses the given UVL file and runs all analyses on it. The parsing is measured as stage {@code parse}.
+	 * The parser and the conversion into clauses share one symbol table, so each feature name is hashed once.
+	 */
+	public AnalysisReport runAnalysis(Path file) {
+		AnalysisMetrics parseMetrics = new AnalysisMetrics();
+		SymbolTable symbols = new SymbolTable();
+		AnalysisMetrics.Probe probe = parseMetrics.start(PARSE_STAGE, null);
+		Result<IFeatureModel> featureModel = new UVLFeatureModelFormat().parse(file, StandardCharsets.UTF_8, symbols);
+		probe.stop();
+		FeatJAR.log().problems(featureModel.getProblems());
+		AnalysisReport report = runAnalysis(featureModel.orElseThrow(), symbols, createScheduler());
+		report.getMetrics().putAll(parseMetrics);
+		report.addStage(PARSE_STAGE);
+		return report;
+	}
+	
+	public AnalysisReport runAnalysis(ComputeBooleanClauseList cnf) {
+		return runAnalysis(cnf.compute());
+	}
+	
+	/**
+	 * Runs all analyses on an already computed clause list, which is shared by all analyses.
+	 */
+	public AnalysisReport runAnalysis(BooleanClauseList clauseList) {
+		AnalysisReport report = analyze(clauseList, createScheduler());
+		logMetrics(report);
+		writeReport(report);
+		return report;
+	}
+	
+	private AnalysisScheduler createScheduler() {
+		return new AnalysisScheduler(parallelism).setBudget(analysisTimeoutMillis, analysisMaxAllocatedBytes);
+	}
+	
+	private AnalysisReport analyze(BooleanClauseList clauseList, AnalysisScheduler scheduler) {
+		long start = System.nanoTime();
+		VariableMap variables = clauseList.getVariableMap();
+		AnalysisReport report = new AnalysisReport(variables);
+		// loads the clauses once; queries on it reuse clauses learned by earlier queries
+		SolverSession session = new SolverSession(clauseList);
+		// auxiliary variables are determined by the features, so they are not analyzed on their own
+		int[] featureVariables = getFeatureVariables(variables);
+		
+		FeatJAR.log().problems(scheduler
+				.add("satisfiable", session.getSolver(), budget -> satisfiableAnalysis(session, budget), report::setSatisfiable)
+				.run(report));
+		if (Boolean.TRUE.equals(report.getSatisfiable())) {
+			// the remaining analyses are independent once satisfiability is known
+			List<Problem> problems = scheduler
+					.add("indeterminate", () -> indeterminantClausesAnalysis(clauseList), report::setIndeterminate)
+					.add("contradicting", () -> contradictingClausesAnalysis(clauseList), report::setContradictingClauses)
+					.add("core", session.getSolver(), budget -> coreFeatureAnalysis(session, featureVariables, budget), report::setCoreAndDeadFeatures)
+					.add("solutions", null, budget -> possibleSolutionAnalysis(clauseList, variables, budget), enumerator -> {
+						report.setSolutionsEnumerated(enumerator.getCount());
+						report.setSolutionsComplete(enumerator.isComplete());
+					})
+					.add("solution-count", null, budget -> solutionCountAnalysis(clauseList, budget), report::setSolutionCount)
+					.add("atomic-sets", session.getSolver(), budget -> atomicSetsAnalysis(session, variables, featureVariables, budget), report::setAtomicSets)
+					.run(report);
+			FeatJAR.log().problems(problems);
+			if (report.getSolutionCount() == null && report.getSolutionsEnumerated() != null
+					&& report.getSolutionsEnumerated() > 0) {
+				// every enumerated solution is distinct, so their number bounds the solution count from below
+				report.setSolutionCountLowerBound(BigInteger.valueOf(report.getSolutionsEnumerated()));
+			}
+			
+			if (reportFile == null) {
+				logReport(report, variables);
+			}
+			else {
+				logSummary(report);
+			}
+			
+			// TODO: Fix redundant analysis
+			//redundantFeatureAnalysis(clauseList, variables);
+		}
+		else if (report.getSatisfiable() == null) {
+			FeatJAR.log().message("Satisfiability is unknown, analysis will not proceed.");
 		}
 		else {
-			for (int i = 0; i < atomics.size(); i++) {
-				FeatJAR.log().message('\n' + "Atomic sets: " + '\n' + getFeaturesBooleanAssignmentSolutions(atomics.get(i).get(), variables));
+			FeatJAR.log().message("Clauses are not satisfiable, analysis will not proceed.");
+		}
+		report.setElapsedNanos(System.nanoTime() - start);
+		FeatJAR.log().message(String.format("Analyses took %.3f s with parallelism %d (speedup %.2f)",
+				report.getElapsedNanos() / 1_000_000_000.0, report.getParallelism(), report.getSpeedup()));
+		return report;
+	}
+	
+	private void logMetrics(AnalysisReport report) {
+		report.getMetrics().toMap().forEach((metric, value) -> FeatJAR.log().debug(metric + " = " + value));
+	}
+	
+	private void writeReport(AnalysisReport report) {
+		if (reportFile == null) {
+			return;
+		}
+		try (Writer writer = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8)) {
+			new AnalysisReportWriter(writer, reportFormat).write(report);
+			FeatJAR.log().message("Wrote report to " + reportFile);
+		}
+		catch (IOException e) {
+			FeatJAR.log().problems(List.of(new Problem(e)));
+		}
+	}
+	
+	private void logSummary(AnalysisReport report) {
+		if (report.getCoreAndDeadFeatures() != null) {
+			FeatJAR.log().message("Computed " + report.getCoreAndDeadFeatures().size() + " core and dead features");
+		}
+		if (report.getAtomicSets() != null) {
+			FeatJAR.log().message("Computed " + report.getAtomicSets().size() + " atomic sets");
+		}
+		if (report.getSolutionCount() != null) {
+			FeatJAR.log().message("There are " + report.getSolutionCount() + " different solutions");
+		}
+	}
+	
+	private void logReport(AnalysisReport report, VariableMap variables) {
+		if (report.getIndeterminate() != null) {
+			FeatJAR.log().message('\n' + "Indeterminant clauses: " + '\n'+ getFeaturesBooleanAssignment(report.getIndeterminate(), variables));
+		}
+		if (report.getContradictingClauses() != null) {
+			BooleanAssignmentList contradictingClauses = report.getContradictingClauses().toAssignmentList();
+			if (contradictingClauses.size() == 0) {
+				FeatJAR.log().message('\n' + "No contradicting clauses found!");
+			}
+			else {
+				for (int i = 0; i < contradictingClauses.size(); i++) {
+					FeatJAR.log().message('\n' + "Contradicting clauses: " + '\n' + getFeaturesBooleanAssignment(contradictingClauses.get(i).get(), variables));
+				}
 			}
 		}
+		if (report.getCoreAndDeadFeatures() != null) {
+			FeatJAR.log().message('\n' + "Computed core and dead SAT4J features: " + '\n' + getCoreFeaturesSAT4J(report.getCoreAndDeadFeatures(), variables));
+		}
+		if (report.getSolutionsEnumerated() != null) {
+			FeatJAR.log().message('\n' + "Enumerated " + report.getSolutionsEnumerated() 
+					+ (report.isSolutionsComplete() ? " (all) solutions" : " solutions before reaching the limit or timeout"));
+		}
+		if (report.getSolutionCount() != null) {
+			FeatJAR.log().message('\n' + "There are " + report.getSolutionCount() + " different solutions");
+		}
+		if (report.getAtomicSets() != null) {
+			BooleanAssignmentList atomics = report.getAtomicSets();
+			if (atomics.size() <= 0) {
+				FeatJAR.log().message('\n' + "No atomic sets found!");
+			}
+			else {
+				for (int i = 0; i < atomics.size(); i++) {
+					FeatJAR.log().message('\n' + "Atomic sets: " + '\n' + getFeaturesBooleanAssignmentSolutions(atomics.get(i).get(), variables));
+				}
+			}
+		}
+	}
+
+	private BooleanAssignmentList atomicSetsAnalysis(SolverSession session, VariableMap variables, int[] featureVariables, AnalysisBudget budget) {
+		FeatJAR.log().message("Running compute atomic sets analysis");
+		Result<List<BooleanAssignment>> atomicSets = session.computeAtomicSets(new int[0], featureVariables, budget);
+		FeatJAR.log().problems(atomicSets.getProblems());
+		return new BooleanAssignmentList(variables, atomicSets.orElseThrow());
 	}
 
-	private void possibleSolutionAnalysis(BooleanClauseList clauseList, VariableMap variables) {
+	private SolutionEnumerator possibleSolutionAnalysis(BooleanClauseList clauseList, VariableMap variables, AnalysisBudget budget) {
 		FeatJAR.log().message("Running compute solutions analysis");
-		BooleanSolutionList solutions = Computations.of(clauseList)
-				.map(ComputeSolutionsSAT4J::new)
-				.compute();
-		for (int i = 0; i < solutions.size(); i++) {
-			FeatJAR.log().message('\n' + "Computed solutions: " + '\n' + getFeaturesBooleanAssignmentSolutions(solutions.toAssignmentList().get(i).get(), variables));
+		// the timeout of the solution bounds applies in addition to the budget of the analysis
+		AnalysisBudget enumerationBudget = new AnalysisBudget(solutionTimeoutMillis, 0).start();
+		budget.onCancel(enumerationBudget::cancel);
+		SolutionEnumerator enumerator = new SolutionEnumerator(clauseList, solutionLimit, enumerationBudget);
+		if (solutionSink != null) {
+			enumerator.forEachRemaining(solutionSink);
 		}
-		BigInteger solutionNumber = Computations.of(clauseList)
-				.map(ComputeSolutionCountSAT4J::new)
-				.compute();
-		FeatJAR.log().message('\n' + "There are " + solutionNumber.intValue() + " different solutions");
+		else {
+			enumerator.forEachRemaining(solution -> FeatJAR.log().message(
+					'\n' + "Computed solution: " + '\n' + getFeaturesBooleanAssignmentSolutions(solution, variables)));
+		}
+		return enumerator;
+	}
+
+	private BigInteger solutionCountAnalysis(BooleanClauseList clauseList, AnalysisBudget budget) {
+		FeatJAR.log().message("Running compute solution count analysis");
+		// compiling once makes counting linear in the size of the d-DNNF instead of enumerating solutions
+		DDNNF ddnnf = new DDNNFCompiler(clauseList).compile(budget).orElseThrow();
+		FeatJAR.log().debug("Compiled d-DNNF with " + ddnnf.getNodeCount() + " nodes");
+		return ddnnf.count();
 	}
 
-	private void coreFeatureAnalysis(BooleanClauseList clauseList, VariableMap variables) {
+	private BooleanAssignment coreFeatureAnalysis(SolverSession session, int[] featureVariables, AnalysisBudget budget) {
 		FeatJAR.log().message("Running dead and core features analysis");
-		BooleanAssignment deadFeatures = Computations.of(clauseList)
-				.map(ComputeCoreSAT4J::new)
-				.compute();
-		
-		FeatJAR.log().message('\n' + "Computed core and dead SAT4J features: " + '\n' + getCoreFeaturesSAT4J(deadFeatures, variables));
+		Result<BooleanAssignment> coreAndDead = session.computeCoreAndDead(new int[0], featureVariables, budget);
+		FeatJAR.log().problems(coreAndDead.getProblems());
+		return coreAndDead.orElseThrow();
 	}
 	
 	// TODO: Fix redundant analysis
@@ -139,36 +439,26 @@ public class ComputeAnalysis{
 		}
 	}
 	
-	private void indeterminantClausesAnalysis(ComputeBooleanClauseList clauseList, VariableMap variables) {
+	private BooleanAssignment indeterminantClausesAnalysis(BooleanClauseList clauseList) {
 		FeatJAR.log().message("Running indeterminant clauses analysis");
-		BooleanAssignment indeterminantClauses = clauseList
+		return Computations.of(clauseList)
 				.map(ComputeIndeterminateSat4J::new)
 				.compute();
-		FeatJAR.log().message('\n' + "Indeterminant clauses: " + '\n'+ getFeaturesBooleanAssignment(indeterminantClauses, variables));
 	}
 
-	private boolean satisfiableAnalysis(BooleanClauseList clauseList) {
+	private Boolean satisfiableAnalysis(SolverSession session, AnalysisBudget budget) {
 		FeatJAR.log().message("Running satisfiable formula analysis");
-		Boolean satisfiable = Computations.of(clauseList)
-				.map(ComputeSatisfiableSAT4J::new)
-				.compute();
+		budget.onCancel(session.getSolver()::expireTimeout);
+		Boolean satisfiable = session.hasSolution().orElseThrow();
 		FeatJAR.log().message('\n' + "Satisfiable: " + '\n' + satisfiable.toString());
 		return satisfiable;
 	}
 
-	private void contradictingClausesAnalysis(BooleanClauseList clauseList, VariableMap variables) {
+	private BooleanClauseList contradictingClausesAnalysis(BooleanClauseList clauseList) {
 		FeatJAR.log().message("Running contradicting clauses analysis");
-		BooleanClauseList contradictingClauses = Computations.of(clauseList)
+		return Computations.of(clauseList)
 				.map(ComputeContradictingClauses::new)
 				.compute();
-		if (contradictingClauses.size() == 0) {
-				FeatJAR.log().message('\n' + "No contradicting clauses found!");
-		}
-		else {
-			for (int i = 0; i < contradictingClauses.size(); i++) {
-				FeatJAR.log().message('\n' + "Contradicting clauses: " + '\n' + getFeaturesBooleanAssignment(contradictingClauses.toAssignmentList().get(i).get(), variables));
-			}
-		}
 	}
 	
 	public String getFeaturesBooleanAssignment(BooleanAssignment featureList, VariableMap variables) {
@@ -178,7 +468,7 @@ public class ComputeAnalysis{
 		
 		StringBuilder featureString = new StringBuilder();
 		for(int i = 0; i < featureList.size(); i++) {
-			if(featureList.get(i) > 0) {
+			if(featureList.get(i) > 0 && !isAuxiliary(featureList.get(i), variables)) {
 
 				featureString.append(variables.get(featureList.get(i)).get() + ", ");
 			}
@@ -196,6 +486,9 @@ public class ComputeAnalysis{
 		
 		StringBuilder featureString = new StringBuilder();
 		for(int i = 0; i < featureList.size(); i++) {
+			if (isAuxiliary(featureList.get(i), variables)) {
+				continue;
+			}
 			if(featureList.get(i) > 0) {
 				featureString.append(variables.get(featureList.get(i)).get() + ", ");
 			}
@@ -219,6 +512,9 @@ public class ComputeAnalysis{
 		StringBuilder featureString = new StringBuilder();
 		
 		for(int i = 0; i < featureList.size(); i++) {
+			if (isAuxiliary(featureList.get(i), variables)) {
+				continue;
+			}
 			if(featureList.get(i) > 0) {
 				coreFeature.append(variables.get(featureList.get(i)).get() + ", ");
 			}
@@ -240,16 +536,54 @@ public class ComputeAnalysis{
 		return featureString.toString();
 	}
 	
+	private static int[] getFeatureVariables(VariableMap variables) {
+		int[] featureVariables = new int[variables.getVariableCount()];
+		int count = 0;
+		for (int variable = 1; variable <= featureVariables.length; variable++) {
+			if (!UVLUtils.isAuxiliaryVariable(variables.get(variable).get())) {
+				featureVariables[count++] = variable;
+			}
+		}
+		return Arrays.copyOf(featureVariables, count);
+	}
+	
+	private static boolean isAuxiliary(int literal, VariableMap variables) {
+		return UVLUtils.isAuxiliaryVariable(variables.get(Math.abs(literal)).get());
+	}
+	
 	public static void main(String[] args) {
 		FeatJAR.initialize();
-		Result<IFeatureModel> featureModel = IO.load(Paths.get(args[0]), new UVLFeatureModelFormat());
-		ComputeBooleanClauseList clauseList = Computations.of(featureModel.get())
-				.map(ComputeFormula::new)
-    			.map(ComputeNNFFormula::new)
-            	.map(ComputeCNFFormula::new)
-            	.map(ComputeBooleanClauseList::new);
-
-		new ComputeAnalysis().runAnalysis(clauseList);
+		int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		ComputeAnalysis analysis = new ComputeAnalysis(parallelism);
+		if (args.length > 2) {
+			analysis.setSolutionBounds(Long.parseLong(args[2]), 0);
+		}
+		ConstraintEncoding constraintEncoding = ConstraintEncoding.valueOf(
+				System.getProperty(CONSTRAINT_ENCODING_PROPERTY, ConstraintEncoding.DISTRIBUTIVE.name()));
+		analysis.setConstraintEncoding(constraintEncoding);
+		analysis.setBudget(Long.getLong(TIMEOUT_PROPERTY, 0), Long.getLong(MEMORY_BUDGET_PROPERTY, 0));
+		String reportFile = System.getProperty(REPORT_FILE_PROPERTY);
+		if (reportFile != null) {
+			analysis.setReportOutput(Paths.get(reportFile), reportFile.endsWith(".csv") 
+					? AnalysisReportWriter.Format.CSV : AnalysisReportWriter.Format.JSON);
+		}
+
+		// reuses clause lists of unchanged models across runs, e.g., in CI
+		String cacheDirectory = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+		if (cacheDirectory != null) {
+			ClauseListCache cache = new ClauseListCache(Paths.get(cacheDirectory), 
+					Long.getLong(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE), constraintEncoding);
+			Result<BooleanClauseList> clauseList = cache.getClauseList(Paths.get(args[0]));
+			FeatJAR.log().problems(clauseList.getProblems());
+			if (clauseList.isEmpty()) {
+				FeatJAR.log().error("Could not load clause list of " + args[0]);
+				return;
+			}
+			analysis.runAnalysis(clauseList.get());
+		}
+		else {
+			analysis.runAnalysis(Paths.get(args[0]));
+		}
 	}
 	
 }
\ No newline at end of file
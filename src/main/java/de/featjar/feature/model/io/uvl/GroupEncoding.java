@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl;
+
+/**
+ * Strategies for encoding the semantics of feature groups as formulas.
+ *
+ * @see UVLUtils#alternative(de.featjar.formula.structure.IFormula[], GroupEncoding, String)
+ * @see UVLUtils#between(de.featjar.formula.structure.IFormula[], int, int, GroupEncoding, String)
+ */
+public enum GroupEncoding {
+    /**
+     * Enumerates all combinations of children using {@link UVLUtils#nchoosek(de.featjar.formula.structure.IFormula[], int, boolean)}.
+     * Does not introduce auxiliary variables, but grows quadratically for alternative groups.
+     */
+    BINOMIAL,
+
+    /**
+     * Uses a sequential counter (ladder encoding for alternative groups).
+     * Introduces auxiliary variables that are fully defined by the children, such that the number of solutions is preserved.
+     * Grows linearly for alternative groups and with O(n * k) for cardinality groups.
+     */
+    SEQUENTIAL_COUNTER,
+
+    /**
+     * Uses {@link #BINOMIAL} for small groups and {@link #SEQUENTIAL_COUNTER} for large groups.
+     * For cardinality groups, the encoding that results in fewer clauses is chosen.
+     */
+    AUTOMATIC;
+
+    /**
+     * Maximum number of children of an alternative group for which {@link #AUTOMATIC} chooses {@link #BINOMIAL}.
+     */
+    public static final int BINOMIAL_ALTERNATIVE_THRESHOLD = 8;
+
+    /**
+     * Resolves {@link #AUTOMATIC} to a concrete encoding for an alternative group.
+     * @param childrenCount The number of children in the group.
+     * @return The encoding to use.
+     */
+    public GroupEncoding forAlternative(int childrenCount) {
+        if (this != AUTOMATIC) {
+            return this;
+        }
+        return childrenCount <= BINOMIAL_ALTERNATIVE_THRESHOLD ? BINOMIAL : SEQUENTIAL_COUNTER;
+    }
+
+    /**
+     * Resolves {@link #AUTOMATIC} to a concrete encoding for a cardinality group.
+     * @param childrenCount The number of children in the group.
+     * @param lower The lower bound of the group, must be between 0 and the number of children.
+     * @param upper The upper bound of the group, must be between the lower bound and the number of children.
+     * @return The encoding to use.
+     */
+    public GroupEncoding forGroup(int childrenCount, int lower, int upper) {
+        if (this != AUTOMATIC) {
+            return this;
+        }
+        if (lower == 1 && upper == 1) {
+            return forAlternative(childrenCount);
+        }
+        final long counterSize = 2L * childrenCount * (upper < childrenCount ? upper + 1 : lower);
+        long binomialSize = 0;
+        if (lower > 0) {
+            binomialSize += binomial(childrenCount, lower - 1, counterSize);
+        }
+        if (upper < childrenCount) {
+            binomialSize += binomial(childrenCount, upper + 1, counterSize);
+        }
+        return binomialSize <= counterSize ? BINOMIAL : SEQUENTIAL_COUNTER;
+    }
+
+    private static long binomial(int n, int k, long limit) {
+        k = Math.min(k, n - k);
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+            if (result > limit) {
+                return limit + 1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,597 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl;
+
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.FeatureTree;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.formula.structure.IFormula;
+import de.vill.main.UVLModelFactory;
+import de.vill.model.constraint.Constraint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses successive versions of a UVL document, such as the contents of an editor, and reuses the unchanged parts
+ * of the previous version.
+ * A document is split into its feature section, which is everything before the {@code constraints} keyword, and its
+ * constraint lines.
+ * If the feature section is unchanged, the previous {@link IFeatureModel} and its feature tree are kept, and only the
+ * constraints of added or changed lines are parsed, while constraints of removed lines are removed from the model.
+ * If the feature section changed, only the subtree of the innermost feature whose lines enclose all changed lines
+ * is parsed again, the rest of the feature tree is copied from the previous version, and the formulas of unchanged
+ * constraint lines are reused in the new model.
+ * Changed constraint lines are parsed by the UVL parser and converted like in {@link UVLFeatureModelFormat},
+ * so their variable names are canonicalized by the same {@link SymbolTable}.
+ * Whenever a document cannot be split reliably (e.g., a constraint spans several lines or a line cannot be parsed on
+ * its own), the whole document is parsed again by {@link UVLFeatureModelFormat}.
+ */
+public class IncrementalUVLParser {
+
+    private static final String CONSTRAINTS_KEYWORD = "constraints";
+    private static final String FEATURES_KEYWORD = "features";
+    private static final String NAMESPACE_KEYWORD = "namespace";
+    private static final String CONSTRAINT_ROOT = "\"__constraints\"";
+
+    private static class Copy {
+        private final IFeatureTree source;
+        private final IFeatureTree rangeSource;
+        private final IFeatureTree parent;
+        private final int groupID;
+
+        private Copy(IFeatureTree source, IFeatureTree rangeSource, IFeatureTree parent, int groupID) {
+            this.source = source;
+            this.rangeSource = rangeSource;
+            this.parent = parent;
+            this.groupID = groupID;
+        }
+    }
+
+    private final SymbolTable symbols;
+    private IFeatureModel featureModel;
+    private String featureSection;
+    private Map<String, LinkedList<IConstraint>> constraintsByLine;
+    private boolean featureTreeReused;
+    private int parsedFeatureLineCount;
+    private int reusedConstraintCount;
+    private int parsedConstraintCount;
+    private long parseNanos;
+
+    public IncrementalUVLParser() {
+        this(new SymbolTable());
+    }
+
+    /**
+     * Creates a new parser.
+     * @param symbols The symbol table that stores the names of all features and variables of all versions,
+     * which can be shared with later stages.
+     */
+    public IncrementalUVLParser(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * Parses the given version of the document.
+     * The returned feature model may be the same instance as the one returned for the previous version,
+     * which is then modified in place.
+     * @param content The content of the document.
+     * @return The feature model.
+     */
+    public Result<IFeatureModel> parse(String content) {
+        long start = System.nanoTime();
+        try {
+            return parseIncrementally(content);
+        } finally {
+            parseNanos = System.nanoTime() - start;
+        }
+    }
+
+    private Result<IFeatureModel> parseIncrementally(String content) {
+        featureTreeReused = false;
+        parsedFeatureLineCount = 0;
+        reusedConstraintCount = 0;
+        parsedConstraintCount = 0;
+
+        int constraintsStart = findConstraintsSection(content);
+        String newFeatureSection = constraintsStart < 0 ? content : content.substring(0, constraintsStart);
+        List<String> constraintLines = constraintsStart < 0
+                ? List.of()
+                : getConstraintLines(content.substring(constraintsStart + CONSTRAINTS_KEYWORD.length()));
+
+        if (featureModel == null || constraintsByLine == null) {
+            return parseFully(content, newFeatureSection, constraintLines);
+        }
+
+        IFeatureModel newFeatureModel;
+        Map<String, LinkedList<IConstraint>> previousConstraints = constraintsByLine;
+        if (newFeatureSection.equals(featureSection)) {
+            newFeatureModel = featureModel;
+            featureTreeReused = true;
+        } else {
+            newFeatureModel = parseChangedSubtree(newFeatureSection);
+            if (newFeatureModel == null) {
+                Result<IFeatureModel> parsedFeatureSection =
+                        new UVLFeatureModelFormat().parseContent(newFeatureSection, symbols);
+                if (parsedFeatureSection.isEmpty()) {
+                    return clear(parsedFeatureSection);
+                }
+                newFeatureModel = parsedFeatureSection.get();
+                parsedFeatureLineCount = countLines(newFeatureSection);
+            }
+        }
+
+        // parse the constraints of new lines before changing the model, so a failure leaves it untouched
+        Map<String, LinkedList<IConstraint>> unusedConstraints = new HashMap<>();
+        previousConstraints.forEach((line, constraints) -> unusedConstraints.put(line, new LinkedList<>(constraints)));
+        List<IConstraint> keptConstraints = new ArrayList<>(constraintLines.size());
+        List<String> newLines = new ArrayList<>();
+        for (String line : constraintLines) {
+            LinkedList<IConstraint> unused = unusedConstraints.get(line);
+            if (unused != null && !unused.isEmpty()) {
+                keptConstraints.add(unused.poll());
+                reusedConstraintCount++;
+            } else {
+                keptConstraints.add(null);
+                newLines.add(line);
+            }
+        }
+        Result<List<IFormula>> newFormulas = parseConstraints(newLines, newFeatureSection, newFeatureModel);
+        if (newFormulas.isEmpty()) {
+            return parseFully(content, newFeatureSection, constraintLines);
+        }
+        parsedConstraintCount = newLines.size();
+
+        Map<String, LinkedList<IConstraint>> newConstraintsByLine = new HashMap<>();
+        if (featureTreeReused) {
+            for (LinkedList<IConstraint> removed : unusedConstraints.values()) {
+                for (IConstraint constraint : removed) {
+                    newFeatureModel.mutate().removeConstraint(constraint);
+                }
+            }
+        }
+        int newFormula = 0;
+        for (int i = 0; i < constraintLines.size(); i++) {
+            IConstraint constraint = keptConstraints.get(i);
+            if (constraint == null) {
+                constraint = newFeatureModel.mutate().addConstraint(newFormulas.get().get(newFormula++));
+            } else if (!featureTreeReused) {
+                constraint = newFeatureModel.mutate().addConstraint(constraint.getFormula());
+            }
+            newConstraintsByLine
+                    .computeIfAbsent(constraintLines.get(i), line -> new LinkedList<>())
+                    .add(constraint);
+        }
+
+        featureModel = newFeatureModel;
+        featureSection = newFeatureSection;
+        constraintsByLine = newConstraintsByLine;
+        return Result.of(featureModel);
+    }
+
+    /**
+     * Returns whether the last call of {@link #parse(String)} kept the previous feature model and its feature tree.
+     * @return Whether the feature tree was reused.
+     */
+    public boolean isFeatureTreeReused() {
+        return featureTreeReused;
+    }
+
+    /**
+     * Returns the number of lines of the feature section that were parsed by the last call of {@link #parse(String)}.
+     * If only a subtree was parsed again, these are the lines of the subtree.
+     * @return The number of parsed lines of the feature section.
+     */
+    public int getParsedFeatureLineCount() {
+        return parsedFeatureLineCount;
+    }
+
+    /**
+     * Returns the number of constraints whose formulas were reused by the last call of {@link #parse(String)}.
+     * @return The number of reused constraints.
+     */
+    public int getReusedConstraintCount() {
+        return reusedConstraintCount;
+    }
+
+    /**
+     * Returns the number of constraint lines that were parsed by the last call of {@link #parse(String)}.
+     * After a full parse, this is the number of all constraints.
+     * @return The number of parsed constraints.
+     */
+    public int getParsedConstraintCount() {
+        return parsedConstraintCount;
+    }
+
+    /**
+     * Returns the latency of the last call of {@link #parse(String)}.
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * Discards the previous version, such that the next document is parsed completely.
+     */
+    public void reset() {
+        featureModel = null;
+        featureSection = null;
+        constraintsByLine = null;
+    }
+
+    private Result<IFeatureModel> parseFully(String content, String newFeatureSection, List<String> constraintLines) {
+        featureTreeReused = false;
+        reusedConstraintCount = 0;
+        Result<IFeatureModel> result = new UVLFeatureModelFormat().parseContent(content, symbols);
+        if (result.isEmpty()) {
+            return clear(result);
+        }
+        featureModel = result.get();
+        featureSection = newFeatureSection;
+        parsedFeatureLineCount = countLines(newFeatureSection);
+        parsedConstraintCount = featureModel.getConstraints().size();
+
+        // constraints can only be assigned to lines if each line contains exactly one constraint
+        if (parsedConstraintCount != constraintLines.size()) {
+            constraintsByLine = null;
+            return result;
+        }
+        constraintsByLine = new HashMap<>();
+        int i = 0;
+        for (IConstraint constraint : featureModel.getConstraints()) {
+            constraintsByLine
+                    .computeIfAbsent(constraintLines.get(i++), line -> new LinkedList<>())
+                    .add(constraint);
+        }
+        return result;
+    }
+
+    private Result<IFeatureModel> clear(Result<IFeatureModel> result) {
+        reset();
+        return result;
+    }
+
+    /**
+     * Parses only the subtree of the innermost feature whose lines enclose all lines that differ from the previous
+     * feature section, and copies all other features from the previous feature tree.
+     * @return The new feature model without constraints, or {@code null} if the changed lines cannot be confined to
+     * a subtree.
+     */
+    private IFeatureModel parseChangedSubtree(String newFeatureSection) {
+        String[] oldLines = featureSection.split("\n", -1);
+        String[] newLines = newFeatureSection.split("\n", -1);
+        if (!hasOnlyFeatures(newLines)) {
+            return null;
+        }
+        int commonLength = Math.min(oldLines.length, newLines.length);
+        int prefix = 0;
+        while (prefix < commonLength && oldLines[prefix].equals(newLines[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < commonLength - prefix
+                && oldLines[oldLines.length - 1 - suffix].equals(newLines[newLines.length - 1 - suffix])) {
+            suffix++;
+        }
+        int changedIndentation = Math.min(
+                getMinIndentation(oldLines, prefix, oldLines.length - suffix),
+                getMinIndentation(newLines, prefix, newLines.length - suffix));
+
+        // the innermost feature above the changed lines that is less indented than all of them
+        int ancestor = prefix - 1;
+        while (ancestor >= 0
+                && (!isFeatureLine(newLines[ancestor]) || getIndentation(newLines[ancestor]) >= changedIndentation)) {
+            ancestor--;
+        }
+        if (ancestor < 0 || getIndentation(newLines[ancestor]) == 0) {
+            return null;
+        }
+        int indentation = getIndentation(newLines[ancestor]);
+        int newEnd = getSubtreeEnd(newLines, ancestor, indentation);
+        if (newEnd < newLines.length - suffix
+                || getSubtreeEnd(oldLines, ancestor, indentation) < oldLines.length - suffix) {
+            return null;
+        }
+
+        StringBuilder subtree =
+                new StringBuilder(getNamespaceDeclaration(newLines)).append(FEATURES_KEYWORD).append('\n');
+        for (int i = ancestor; i < newEnd; i++) {
+            subtree.append(newLines[i]).append('\n');
+        }
+        Result<IFeatureModel> parsedSubtree = new UVLFeatureModelFormat().parseContent(subtree.toString(), symbols);
+        if (parsedSubtree.isEmpty() || parsedSubtree.get().getRoots().size() != 1) {
+            return null;
+        }
+        IFeatureTree replacement = parsedSubtree.get().getRoots().get(0);
+        Result<String> replacedName = replacement.getFeature().getName();
+        if (replacedName.isEmpty() || featureModel.getFeature(replacedName.get()).isEmpty()) {
+            return null;
+        }
+        parsedFeatureLineCount = newEnd - ancestor;
+        return copyFeatureTree(replacedName.get(), replacement);
+    }
+
+    /**
+     * Copies the previous feature tree into a new feature model, replacing the subtree of the given feature.
+     * The replaced feature keeps its feature cardinality, which is defined by its parent.
+     */
+    private IFeatureModel copyFeatureTree(String replacedName, IFeatureTree replacement) {
+        IFeatureModel newFeatureModel = new FeatureModel();
+        for (IFeatureTree root : featureModel.getRoots()) {
+            LinkedList<Copy> stack = new LinkedList<>();
+            stack.push(getCopy(root, null, 0, replacedName, replacement));
+            while (!stack.isEmpty()) {
+                Copy copy = stack.pop();
+                IFeature source = copy.source.getFeature();
+                IFeature feature = newFeatureModel.mutate().addFeature(source.getName().get());
+                feature.mutate().setAbstract(source.isAbstract());
+                feature.mutate().setType(source.getType());
+
+                IFeatureTree tree;
+                if (copy.parent == null) {
+                    tree = newFeatureModel.mutate().addFeatureTreeRoot(feature);
+                } else {
+                    tree = copy.parent.mutate().addFeatureBelow(feature);
+                    tree.mutate().setGroupID(copy.groupID);
+                }
+                tree.mutate()
+                        .setFeatureRange(getRange(
+                                copy.rangeSource.getFeatureCardinalityLowerBound(),
+                                copy.rangeSource.getFeatureCardinalityUpperBound()));
+
+                List<FeatureTree.Group> groups = copy.source.getGroups();
+                List<Copy> children = new ArrayList<>();
+                for (int i = 0; i < groups.size(); i++) {
+                    List<IFeatureTree> groupChildren = copy.source.getGroupChildren(i);
+                    if (groupChildren.isEmpty()) {
+                        continue;
+                    }
+                    FeatureTree.Group group = groups.get(i);
+                    int groupID = tree.getGroups().size();
+                    tree.mutate().addGroup(getRange(group.getLowerBound(), group.getUpperBound()));
+                    for (IFeatureTree child : groupChildren) {
+                        children.add(getCopy(child, tree, groupID, replacedName, replacement));
+                    }
+                }
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            }
+        }
+        return newFeatureModel;
+    }
+
+    private static Copy getCopy(
+            IFeatureTree node, IFeatureTree parent, int groupID, String replacedName, IFeatureTree replacement) {
+        boolean replaced = replacedName.equals(node.getFeature().getName().orElse(null));
+        return new Copy(replaced ? replacement : node, node, parent, groupID);
+    }
+
+    private static Range getRange(int lowerBound, int upperBound) {
+        return upperBound < 0 ? Range.atLeast(lowerBound) : Range.of(lowerBound, upperBound);
+    }
+
+    /**
+     * Parses the given constraint lines by the UVL parser, declaring only the features they reference.
+     * @return The formulas of all lines, or an empty result if a line cannot be parsed on its own.
+     */
+    private Result<List<IFormula>> parseConstraints(
+            List<String> lines, String newFeatureSection, IFeatureModel newFeatureModel) {
+        if (lines.isEmpty()) {
+            return Result.of(List.of());
+        }
+        StringBuilder document = new StringBuilder(getNamespaceDeclaration(newFeatureSection.split("\n")))
+                .append(FEATURES_KEYWORD)
+                .append("\n\t")
+                .append(CONSTRAINT_ROOT);
+        Set<String> identifiers = new HashSet<>();
+        int featureCount = 0;
+        for (String line : lines) {
+            for (String identifier : getIdentifiers(line)) {
+                String name = identifier.startsWith("\"")
+                        ? identifier.substring(1, identifier.length() - 1)
+                        : identifier;
+                if (identifiers.add(identifier) && newFeatureModel.getFeature(name).isPresent()) {
+                    if (featureCount++ == 0) {
+                        document.append("\n\t\toptional");
+                    }
+                    document.append("\n\t\t\t").append(identifier);
+                }
+            }
+        }
+        document.append('\n').append(CONSTRAINTS_KEYWORD).append('\n');
+        for (String line : lines) {
+            document.append('\t').append(line).append('\n');
+        }
+        try {
+            List<Constraint> constraints =
+                    new UVLModelFactory().parse(document.toString()).getConstraints();
+            if (constraints.size() != lines.size()) {
+                return Result.empty();
+            }
+            return Result.of(UVLUtils.uvlConstraintToFormula(constraints, symbols));
+        } catch (Exception e) {
+            return Result.empty(e);
+        }
+    }
+
+    /**
+     * Returns the quoted and unquoted identifiers of a constraint line, which include the names of its features.
+     */
+    private static List<String> getIdentifiers(String line) {
+        List<String> identifiers = new ArrayList<>();
+        int i = 0;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                int end = line.indexOf('"', i + 1);
+                if (end < 0) {
+                    break;
+                }
+                identifiers.add(line.substring(i, end + 1));
+                i = end + 1;
+            } else if (Character.isLetterOrDigit(c) || c == '_') {
+                int end = i + 1;
+                while (end < line.length()
+                        && (Character.isLetterOrDigit(line.charAt(end))
+                                || line.charAt(end) == '_'
+                                || line.charAt(end) == '.')) {
+                    end++;
+                }
+                if (!Character.isDigit(c)) {
+                    identifiers.add(line.substring(i, end));
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return identifiers;
+    }
+
+    private static String getNamespaceDeclaration(String[] lines) {
+        for (String line : lines) {
+            if (line.startsWith(NAMESPACE_KEYWORD + " ")) {
+                return line + "\n";
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Returns whether all unindented lines are the namespace or the features keyword, such that each feature is
+     * declared in the feature section itself and not imported.
+     */
+    private static boolean hasOnlyFeatures(String[] lines) {
+        for (String line : lines) {
+            if (!isBlank(line)
+                    && getIndentation(line) == 0
+                    && !line.strip().equals(FEATURES_KEYWORD)
+                    && !line.startsWith(NAMESPACE_KEYWORD + " ")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the end of the subtree of the feature at the given line, which contains all following lines that are
+     * more indented than the feature.
+     */
+    private static int getSubtreeEnd(String[] lines, int start, int indentation) {
+        int end = start + 1;
+        while (end < lines.length && (isBlank(lines[end]) || getIndentation(lines[end]) > indentation)) {
+            end++;
+        }
+        return end;
+    }
+
+    private static int getMinIndentation(String[] lines, int start, int end) {
+        int minIndentation = Integer.MAX_VALUE;
+        for (int i = start; i < end; i++) {
+            if (!isBlank(lines[i])) {
+                minIndentation = Math.min(minIndentation, getIndentation(lines[i]));
+            }
+        }
+        return minIndentation;
+    }
+
+    private static int getIndentation(String line) {
+        int indentation = 0;
+        while (indentation < line.length() && Character.isWhitespace(line.charAt(indentation))) {
+            indentation++;
+        }
+        return indentation;
+    }
+
+    /**
+     * Returns whether a line is neither blank nor a comment nor a group keyword.
+     */
+    private static boolean isFeatureLine(String line) {
+        String trimmed = line.strip();
+        return !isBlank(line)
+                && !trimmed.startsWith("[")
+                && !trimmed.equals("mandatory")
+                && !trimmed.equals("optional")
+                && !trimmed.equals("alternative")
+                && !trimmed.equals("or");
+    }
+
+    private static boolean isBlank(String line) {
+        String trimmed = line.strip();
+        return trimmed.isEmpty() || trimmed.startsWith("//");
+    }
+
+    private static int countLines(String content) {
+        int count = 1;
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the start of the line that contains only the {@code constraints} keyword.
+     * @return The index of the keyword, or {@code -1} if the document has no constraints section.
+     */
+    private static int findConstraintsSection(String content) {
+        int lineStart = 0;
+        while (lineStart < content.length()) {
+            int lineEnd = content.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = content.length();
+            }
+            if (content.startsWith(CONSTRAINTS_KEYWORD, lineStart)
+                    && content.substring(lineStart + CONSTRAINTS_KEYWORD.length(), lineEnd)
+                            .isBlank()) {
+                return lineStart;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the trimmed, non-empty lines of the constraints section, ignoring comment lines.
+     */
+    private static List<String> getConstraintLines(String constraintSection) {
+        List<String> lines = new ArrayList<>();
+        for (String line : constraintSection.split("\n")) {
+            String trimmed = line.strip();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("//")) {
+                lines.add(trimmed);
+            }
+        }
+        return lines;
+    }
+}
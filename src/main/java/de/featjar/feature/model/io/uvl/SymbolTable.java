@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl;
+
+import de.featjar.base.data.Result;
+import de.featjar.formula.VariableMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the feature names of one feature model to dense ids, starting at {@code 1}.
+ * Each name is hashed and stored once. Stages that share a table (parsing, formula and clause list creation)
+ * use the same string instance for each name and agree on the id of each variable,
+ * which is also its index in the {@link VariableMap} returned by {@link #toVariableMap()}.
+ * A table should only be shared by the stages of one model, as every interned name becomes a variable.
+ * A table is not thread-safe, as the stages that share it run one after another.
+ */
+public class SymbolTable {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private VariableMap variableMap;
+
+    /**
+     * Returns the id of the given name, adding the name if it is not contained yet.
+     * @param name The name.
+     * @return The id of the name.
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            names.add(name);
+            id = names.size();
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the instance of the given name that is stored in this table, adding the name if necessary.
+     * Replacing equal strings by this instance lets their duplicates be garbage collected.
+     * @param name The name.
+     * @return The stored instance of the name.
+     */
+    public String canonicalize(String name) {
+        return names.get(intern(name) - 1);
+    }
+
+    /**
+     * Returns the id of the given name.
+     * @param name The name.
+     * @return The id, or an empty result if the name is not contained.
+     */
+    public Result<Integer> getId(String name) {
+        Integer id = ids.get(name);
+        return id != null ? Result.of(id) : Result.empty();
+    }
+
+    /**
+     * Returns the name of the given id.
+     * @param id The id.
+     * @return The name, or an empty result if no name has the id.
+     */
+    public Result<String> getName(int id) {
+        return id > 0 && id <= names.size() ? Result.of(names.get(id - 1)) : Result.empty();
+    }
+
+    /**
+     * Returns the number of names.
+     * @return The number of names.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Returns all names, ordered by id.
+     * @return The names.
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(new ArrayList<>(names));
+    }
+
+    /**
+     * Returns a variable map in which each name has its id as index.
+     * The map is created once and returned again until a name is added, so it must not be modified.
+     * @return The variable map.
+     */
+    public VariableMap toVariableMap() {
+        if (variableMap == null || variableMap.getVariableCount() != names.size()) {
+            variableMap = new VariableMap(new ArrayList<>(names));
+        }
+        return variableMap;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl;
+
+import de.featjar.base.FeatJAR;
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.feature.model.IFeatureModel;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads many UVL files concurrently using {@link UVLFeatureModelFormat}.
+ * Files are parsed on a bounded fork-join pool and results are returned in the order of the given files.
+ */
+public class UVLBatchLoader {
+
+    /**
+     * The results of loading a batch of UVL files.
+     */
+    public static class BatchResult {
+        private final List<Path> files;
+        private final List<Result<IFeatureModel>> results;
+        private final long elapsedNanos;
+
+        private BatchResult(List<Path> files, List<Result<IFeatureModel>> results, long elapsedNanos) {
+            this.files = files;
+            this.results = results;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns the loaded files.
+         * @return The loaded files.
+         */
+        public List<Path> getFiles() {
+            return files;
+        }
+
+        /**
+         * Returns the results for all files, in the same order as {@link #getFiles()}.
+         * @return The results for all files, in the same order as {@link #getFiles()}.
+         */
+        public List<Result<IFeatureModel>> getResults() {
+            return results;
+        }
+
+        /**
+         * Returns the problems that occurred while loading the given file.
+         * @param index The index of the file.
+         * @return The problems that occurred while loading the given file.
+         */
+        public List<Problem> getProblems(int index) {
+            return results.get(index).getProblems();
+        }
+
+        /**
+         * Returns the number of files that could not be loaded.
+         * @return The number of files that could not be loaded.
+         */
+        public long getFailureCount() {
+            return results.stream().filter(Result::isEmpty).count();
+        }
+
+        /**
+         * Returns the wall-clock time needed to load all files in nanoseconds.
+         * @return The wall-clock time needed to load all files in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns the number of loaded files per second.
+         * @return The number of loaded files per second.
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : files.size() / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+
+    private final int parallelism;
+
+    /**
+     * Creates a new loader that uses all available processors.
+     */
+    public UVLBatchLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new loader.
+     * @param parallelism The maximum number of files that are parsed concurrently.
+     */
+    public UVLBatchLoader(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Loads all UVL files in the given directory and its subdirectories, sorted by path.
+     * @param directory The directory.
+     * @return The results of all files.
+     * @throws IOException If the directory cannot be listed.
+     */
+    public BatchResult load(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return load(paths.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(".uvl"))
+                    .sorted()
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Loads the given UVL files.
+     * @param files The files.
+     * @return The results of all files, in the same order as the given files.
+     */
+    public BatchResult load(List<Path> files) {
+        final List<Callable<Result<IFeatureModel>>> tasks = new ArrayList<>(files.size());
+        for (Path file : files) {
+            tasks.add(() -> new UVLFeatureModelFormat().parse(file, StandardCharsets.UTF_8));
+        }
+
+        final long start = System.nanoTime();
+        final List<Result<IFeatureModel>> results = new ArrayList<>(files.size());
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (Future<Result<IFeatureModel>> future : pool.invokeAll(tasks)) {
+                results.add(getResult(future));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        final BatchResult batchResult = new BatchResult(List.copyOf(files), results, System.nanoTime() - start);
+
+        FeatJAR.log()
+                .debug(String.format(
+                        "Loaded %d UVL files (%d failed) in %.3f s (%.1f files/s)",
+                        files.size(),
+                        batchResult.getFailureCount(),
+                        batchResult.getElapsedNanos() / 1_000_000_000.0,
+                        batchResult.getThroughput()));
+        return batchResult;
+    }
+
+    private static Result<IFeatureModel> getResult(Future<Result<IFeatureModel>> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return Result.empty(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.empty(e);
+        }
+    }
+}
@@ -30,6 +30,15 @@ import de.featjar.feature.model.io.uvl.visitor.FeatureTreeToUVLFeatureModelVisit
 import de.featjar.feature.model.io.uvl.visitor.FormulaToUVLConstraintVisitor;
 import de.featjar.formula.structure.IFormula;
 import de.vill.main.UVLModelFactory;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -43,13 +52,46 @@ public class UVLFeatureModelFormat implements IFormat<IFeatureModel> {
     @Override
     public Result<IFeatureModel> parse(AInputMapper inputMapper) {
         try {
-            String content = inputMapper.get().text();
+            return parseContent(inputMapper.get().text(), new SymbolTable());
+        } catch (Exception e) {
+            return Result.empty(e);
+        }
+    }
+
+    /**
+     * Parses a feature model from a UVL file, which is read at once instead of line by line.
+     * @param path The path of the UVL file.
+     * @param charset The charset of the UVL file.
+     * @return The parsed feature model.
+     */
+    public Result<IFeatureModel> parse(Path path, Charset charset) {
+        return parse(path, charset, new SymbolTable());
+    }
+
+    /**
+     * Parses a feature model from a UVL file, which is read at once instead of line by line.
+     * @param path The path of the UVL file.
+     * @param charset The charset of the UVL file.
+     * @param symbols The symbol table that stores the names of all features, which can be shared with later stages,
+     * such as {@link de.featjar.feature.model.io.uvl.analysis.FeatureTreeToClauseList}.
+     * @return The parsed feature model.
+     */
+    public Result<IFeatureModel> parse(Path path, Charset charset, SymbolTable symbols) {
+        try {
+            return parseContent(Files.readString(path, charset), symbols);
+        } catch (Exception e) {
+            return Result.empty(e);
+        }
+    }
+
+    Result<IFeatureModel> parseContent(String content, SymbolTable symbols) {
+        try {
             UVLModelFactory uvlModelFactory = new UVLModelFactory();
             de.vill.model.FeatureModel uvlModel = uvlModelFactory.parse(content);
 
-            IFeatureModel featureModel = UVLUtils.createFeatureModel(uvlModel);
+            IFeatureModel featureModel = UVLUtils.createFeatureModel(uvlModel, symbols);
 
-            List<IFormula> formulas = UVLUtils.uvlConstraintToFormula(uvlModel.getConstraints());
+            List<IFormula> formulas = UVLUtils.uvlConstraintToFormula(uvlModel.getConstraints(), symbols);
             formulas.forEach((formula) -> featureModel.mutate().addConstraint(formula));
 
             return Result.of(featureModel);
@@ -79,7 +121,7 @@ public class UVLFeatureModelFormat implements IFormat<IFeatureModel> {
             }
 
             Result<de.vill.model.FeatureModel> uvlModel =
-                    Trees.traverse(featureTree.get(), new FeatureTreeToUVLFeatureModelVisitor());
+                    new FeatureTreeToUVLFeatureModelVisitor().convert(featureTree.get());
             problems.addAll(uvlModel.getProblems());
             if (uvlModel.isEmpty()) {
                 return Result.empty(problems);
@@ -101,6 +143,33 @@ public class UVLFeatureModelFormat implements IFormat<IFeatureModel> {
         }
     }
 
+    /**
+     * Writes a feature model as UVL text incrementally to a writer, without building the complete output in memory.
+     * @param fm The feature model to write.
+     * @param writer The writer, which should be buffered.
+     * @return All problems that occurred while writing.
+     * @throws IOException If the writer fails.
+     */
+    public List<Problem> write(IFeatureModel fm, Writer writer) throws IOException {
+        return new UVLFeatureModelWriter(writer).write(fm);
+    }
+
+    /**
+     * Writes a feature model as UTF-8 encoded UVL text incrementally to an output stream using a buffered channel.
+     * The output stream is not closed.
+     * @param fm The feature model to write.
+     * @param outputStream The output stream.
+     * @return All problems that occurred while writing.
+     * @throws IOException If the output stream fails.
+     */
+    public List<Problem> write(IFeatureModel fm, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(
+                Channels.newWriter(Channels.newChannel(outputStream), StandardCharsets.UTF_8.newEncoder(), -1));
+        List<Problem> problems = write(fm, writer);
+        writer.flush();
+        return problems;
+    }
+
     @Override
     public boolean supportsParse() {
         return true;
@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl;
+
+import de.featjar.base.data.Problem;
+import de.featjar.feature.model.Attributes;
+import de.featjar.feature.model.FeatureTree;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.connective.Reference;
+import de.featjar.formula.structure.predicate.Literal;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Writes a {@link IFeatureModel} as UVL text directly to a {@link Writer}.
+ * In contrast to {@link UVLFeatureModelFormat#serialize(IFeatureModel)}, neither an intermediate
+ * {@link de.vill.model.FeatureModel} nor the complete output is held in memory.
+ */
+public class UVLFeatureModelWriter {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("[a-zA-Z_][a-zA-Z_0-9]*");
+    private static final Set<String> KEYWORDS = Set.of(
+            "namespace",
+            "imports",
+            "include",
+            "features",
+            "constraints",
+            "mandatory",
+            "optional",
+            "alternative",
+            "or",
+            "cardinality",
+            "as",
+            "true",
+            "false",
+            "Boolean",
+            "Integer",
+            "Real",
+            "String");
+
+    private static class Entry {
+        private final IFeatureTree node;
+        private final String keyword;
+        private final int depth;
+
+        private Entry(IFeatureTree node, String keyword, int depth) {
+            this.node = node;
+            this.keyword = keyword;
+            this.depth = depth;
+        }
+    }
+
+    private final Writer writer;
+    private final List<Problem> problems = new ArrayList<>();
+
+    /**
+     * Creates a new writer. The given writer should be buffered.
+     * @param writer The writer to write the UVL text to.
+     */
+    public UVLFeatureModelWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the given feature model.
+     * @param featureModel The feature model.
+     * @return All problems that occurred while writing. Constraints that cannot be expressed in UVL are skipped.
+     * @throws IOException If the underlying writer fails.
+     */
+    public List<Problem> write(IFeatureModel featureModel) throws IOException {
+        problems.clear();
+        List<IFeatureTree> roots = featureModel.getRoots();
+        if (roots.isEmpty()) {
+            problems.add(new Problem("No root features exists.", Problem.Severity.ERROR));
+            return problems;
+        }
+        if (roots.size() > 1) {
+            problems.add(new Problem(
+                    "UVL supports only one root feature. If there are more than one root features in the model, the first one will be used.",
+                    Problem.Severity.WARNING));
+        }
+
+        writer.write("features\n");
+        writeFeatureTree(roots.get(0));
+
+        if (!featureModel.getConstraints().isEmpty()) {
+            writer.write("\nconstraints\n");
+            StringBuilder constraintBuilder = new StringBuilder();
+            for (IConstraint constraint : featureModel.getConstraints()) {
+                constraintBuilder.setLength(0);
+                if (appendFormula(constraintBuilder, constraint.getFormula(), false)) {
+                    writer.write('\t');
+                    writer.append(constraintBuilder);
+                    writer.write('\n');
+                } else {
+                    problems.add(new Problem(
+                            "Constraint " + constraint.getFormula() + " cannot be expressed in UVL and is skipped.",
+                            Problem.Severity.ERROR));
+                }
+            }
+        }
+        writer.flush();
+        return problems;
+    }
+
+    private void writeFeatureTree(IFeatureTree root) throws IOException {
+        LinkedList<Entry> stack = new LinkedList<>();
+        stack.push(new Entry(root, null, 1));
+        while (!stack.isEmpty()) {
+            Entry entry = stack.pop();
+            indent(entry.depth);
+            if (entry.keyword != null) {
+                writer.write(entry.keyword);
+                writer.write('\n');
+                continue;
+            }
+            IFeatureTree node = entry.node;
+            writeFeature(node.getFeature());
+
+            List<FeatureTree.Group> groups = node.getGroups();
+            List<Entry> groupEntries = new ArrayList<>();
+            for (int i = 0; i < groups.size(); i++) {
+                List<IFeatureTree> children = node.getGroupChildren(i);
+                if (children.isEmpty()) {
+                    continue;
+                }
+                FeatureTree.Group group = groups.get(i);
+                if (group.isAnd()) {
+                    addGroup(groupEntries, "mandatory", children, true, entry.depth);
+                    addGroup(groupEntries, "optional", children, false, entry.depth);
+                } else {
+                    groupEntries.add(new Entry(null, getGroupKeyword(group), entry.depth + 1));
+                    for (IFeatureTree child : children) {
+                        groupEntries.add(new Entry(child, null, entry.depth + 2));
+                    }
+                }
+            }
+            for (int i = groupEntries.size() - 1; i >= 0; i--) {
+                stack.push(groupEntries.get(i));
+            }
+        }
+    }
+
+    private void addGroup(
+            List<Entry> groupEntries, String keyword, List<IFeatureTree> children, boolean mandatory, int depth) {
+        boolean empty = true;
+        for (IFeatureTree child : children) {
+            if (child.isMandatory() == mandatory) {
+                if (empty) {
+                    groupEntries.add(new Entry(null, keyword, depth + 1));
+                    empty = false;
+                }
+                groupEntries.add(new Entry(child, null, depth + 2));
+            }
+        }
+    }
+
+    private String getGroupKeyword(FeatureTree.Group group) {
+        if (group.isOr()) {
+            return "or";
+        } else if (group.isAlternative()) {
+            return "alternative";
+        } else {
+            int upperBound = group.getUpperBound();
+            return "[" + group.getLowerBound() + ".." + (upperBound < 0 ? "*" : String.valueOf(upperBound)) + "]";
+        }
+    }
+
+    private void writeFeature(IFeature feature) throws IOException {
+        writer.write(getTypeName(feature.getType()));
+        writer.write(' ');
+        writer.write(quote(getDeclaredName(feature)));
+        writer.write(" {abstract ");
+        writer.write(String.valueOf(feature.isAbstract()));
+        for (var attribute : feature.getAttributes().orElseThrow().entrySet()) {
+            if (attribute.getKey().equals(Attributes.ABSTRACT)) {
+                continue;
+            }
+            String value = formatAttributeValue(attribute.getValue());
+            if (value != null) {
+                writer.write(", ");
+                writer.write(attribute.getKey().getName());
+                writer.write(' ');
+                writer.write(value);
+            }
+        }
+        writer.write("}\n");
+    }
+
+    /**
+     * Returns the name of a feature without its namespace, as feature declarations must not be qualified.
+     * The namespace is split off the same way as in
+     * {@link de.featjar.feature.model.io.uvl.visitor.FeatureTreeToUVLFeatureModelVisitor}.
+     */
+    private String getDeclaredName(IFeature feature) {
+        String name = feature.getName().orElse("");
+        String[] namespaceAndName = name.split("::");
+        if (namespaceAndName.length == 1) {
+            return namespaceAndName[0];
+        } else if (namespaceAndName.length == 2) {
+            return namespaceAndName[1];
+        } else {
+            problems.add(new Problem("Feature " + name + " has an illegal name.", Problem.Severity.ERROR));
+            return name;
+        }
+    }
+
+    private String getTypeName(Class<?> type) {
+        if (type == Integer.class) {
+            return "Integer";
+        } else if (type == Double.class) {
+            return "Real";
+        } else if (type == String.class) {
+            return "String";
+        } else {
+            return "Boolean";
+        }
+    }
+
+    private String formatAttributeValue(Object value) {
+        if (value instanceof Boolean || value instanceof Number) {
+            return value.toString();
+        } else if (value instanceof String) {
+            return "'" + ((String) value).replace("'", "\\'") + "'";
+        } else {
+            return null;
+        }
+    }
+
+    private void indent(int depth) throws IOException {
+        for (int i = 0; i < depth; i++) {
+            writer.write('\t');
+        }
+    }
+
+    private static String quote(String name) {
+        return ID_PATTERN.matcher(name).matches() && !KEYWORDS.contains(name)
+                ? name
+                : "\"" + name.replace("\"", "\\\"") + "\"";
+    }
+
+    private static boolean appendFormula(StringBuilder builder, IExpression expression, boolean nested) {
+        if (expression instanceof Reference) {
+            return appendFormula(builder, expression.getChildren().get(0), nested);
+        } else if (expression instanceof Literal) {
+            Literal literal = (Literal) expression;
+            if (!literal.isPositive()) {
+                builder.append('!');
+            }
+            builder.append(quote(literal.getChildren().get(0).getName()));
+            return true;
+        } else if (expression instanceof Not) {
+            builder.append('!');
+            return appendFormula(builder, expression.getChildren().get(0), true);
+        } else if (expression instanceof And) {
+            return appendOperation(builder, expression, " & ", nested);
+        } else if (expression instanceof Or) {
+            return appendOperation(builder, expression, " | ", nested);
+        } else if (expression instanceof Implies) {
+            return appendOperation(builder, expression, " => ", nested);
+        } else if (expression instanceof BiImplies) {
+            return appendOperation(builder, expression, " <=> ", nested);
+        }
+        return false;
+    }
+
+    private static boolean appendOperation(
+            StringBuilder builder, IExpression expression, String operator, boolean nested) {
+        List<? extends IExpression> children = expression.getChildren();
+        if (children.isEmpty()) {
+            return false;
+        }
+        if (children.size() == 1) {
+            return appendFormula(builder, children.get(0), nested);
+        }
+        if (nested) {
+            builder.append('(');
+        }
+        for (int i = 0; i < children.size(); i++) {
+            if (i > 0) {
+                builder.append(operator);
+            }
+            if (!appendFormula(builder, children.get(i), true)) {
+                return false;
+            }
+        }
+        if (nested) {
+            builder.append(')');
+        }
+        return true;
+    }
+}
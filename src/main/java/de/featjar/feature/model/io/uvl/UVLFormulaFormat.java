@@ -38,6 +38,9 @@ import de.vill.model.Attribute;
 import de.vill.model.Feature;
 import de.vill.model.FeatureType;
 import de.vill.model.Group;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -53,12 +56,35 @@ public class UVLFormulaFormat implements IFormat<IFormula> {
 
     @Override
     public Result<IFormula> parse(AInputMapper inputMapper) {
+        try {
+            return parseContent(inputMapper.get().text());
+        } catch (Exception e) {
+            return Result.empty(e);
+        }
+    }
+
+    /**
+     * Parses a formula from a UVL file, which is read at once instead of line by line.
+     * @param path The path of the UVL file.
+     * @param charset The charset of the UVL file.
+     * @return The parsed formula.
+     */
+    public Result<IFormula> parse(Path path, Charset charset) {
+        try {
+            return parseContent(Files.readString(path, charset));
+        } catch (Exception e) {
+            return Result.empty(e);
+        }
+    }
+
+    private Result<IFormula> parseContent(String content) {
         List<Problem> problems = new ArrayList<>();
         try {
-            String content = inputMapper.get().text();
             UVLModelFactory uvlModelFactory = new UVLModelFactory();
             de.vill.model.FeatureModel uvlModel = uvlModelFactory.parse(content);
-            IFeatureModel featureModel = UVLUtils.createFeatureModel(uvlModel);
+            // all stages share the same instance of each name
+            SymbolTable symbols = new SymbolTable();
+            IFeatureModel featureModel = UVLUtils.createFeatureModel(uvlModel, symbols);
 
             List<IFeatureTree> roots = featureModel.getRoots();
             if (roots.isEmpty()) {
@@ -69,7 +95,7 @@ public class UVLFormulaFormat implements IFormat<IFormula> {
             List<IFormula> formulas = new ArrayList<>();
             boolean fail = false;
             for (IFeatureTree rootFeature : roots) {
-                Result<IFormula> result = Trees.traverse(rootFeature, new FeatureTreeToFormulaVisitor());
+                Result<IFormula> result = Trees.traverse(rootFeature, new FeatureTreeToFormulaVisitor(GroupEncoding.AUTOMATIC, symbols));
                 if (result.isEmpty()) {
                     problems.addAll(result.getProblems());
                     fail = true;
@@ -84,7 +110,7 @@ public class UVLFormulaFormat implements IFormat<IFormula> {
                 return Result.empty(problems);
             }
 
-            List<IFormula> constraintFormulas = UVLUtils.uvlConstraintToFormula(uvlModel.getConstraints());
+            List<IFormula> constraintFormulas = UVLUtils.uvlConstraintToFormula(uvlModel.getConstraints(), symbols);
             formulas.addAll(constraintFormulas);
 
             IFormula formula = new Reference(formulas.size() == 1 ? formulas.get(0) : new And(formulas));
@@ -21,23 +21,29 @@
 package de.featjar.feature.model.io.uvl;
 
 import de.featjar.base.FeatJAR;
-import de.featjar.base.data.BinomialCalculator;
 import de.featjar.base.data.Range;
 import de.featjar.base.data.Result;
 import de.featjar.base.io.format.ParseException;
 import de.featjar.feature.model.*;
+import de.featjar.feature.model.io.uvl.visitor.UVLConstraintToFormulaVisitor;
 import de.featjar.formula.io.textual.ExpressionParser;
 import de.featjar.formula.io.textual.UVLSymbols;
-import de.featjar.formula.structure.Expressions;
-import de.featjar.formula.structure.IExpression;
 import de.featjar.formula.structure.IFormula;
 import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Implies;
 import de.featjar.formula.structure.connective.Not;
 import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.predicate.False;
+import de.featjar.formula.structure.predicate.Literal;
+import de.featjar.formula.structure.predicate.True;
 import de.vill.model.FeatureType;
 import de.vill.model.Group;
 import de.vill.model.constraint.Constraint;
+import java.math.BigInteger;
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Provides helper functions for uvl parsing and serialization.
@@ -46,22 +52,72 @@ import java.util.*;
  * @author Sebastion Krieter
  */
 public class UVLUtils {
-    public static List<IFormula> uvlConstraintToFormula(List<Constraint> uvlConstraints) throws ClassNotFoundException {
-        List<IFormula> formulas = new ArrayList<>();
-        for (Constraint constraint : uvlConstraints) {
-            // TODO do not use raw constructor, get instance for
-            final ExpressionParser nodeReader = new ExpressionParser();
+
+    /**
+     * Prefix of all auxiliary variables that are introduced when encoding feature groups.
+     */
+    public static final String AUXILIARY_VARIABLE_PREFIX = "__aux_";
+
+    /**
+     * Name of the encoding of alternative groups by a ladder,
+     * see {@link #getAuxiliaryVariableName(String, String, Object)}.
+     */
+    public static final String LADDER_ENCODER = "ladder";
+
+    /**
+     * Name of the encoding of cardinality groups by a sequential counter, see
+     * {@link #getAuxiliaryVariableName(String, String, Object)}.
+     */
+    public static final String COUNTER_ENCODER = "counter";
+
+    private static final char AUXILIARY_SEPARATOR = '#';
+    private static final char AUXILIARY_ESCAPE = '\\';
+
+    private static final ThreadLocal<ExpressionParser> expressionParser = new ThreadLocal<>();
+
+    /**
+     * Returns an expression parser for UVL constraints that is cached for the current thread.
+     * The parser is configured with {@link UVLSymbols} only once and then reused for all subsequent constraints.
+     * @return The expression parser of the current thread.
+     */
+    public static ExpressionParser getExpressionParser() throws ClassNotFoundException {
+        ExpressionParser nodeReader = expressionParser.get();
+        if (nodeReader == null) {
             ClassLoader.getSystemClassLoader().loadClass("de.featjar.formula.io.textual.Symbols");
+            nodeReader = new ExpressionParser();
             nodeReader.setSymbols(UVLSymbols.INSTANCE);
             nodeReader.setIgnoreMissingFeatures(ExpressionParser.ErrorHandling.KEEP);
             nodeReader.setIgnoreUnparseableSubExpressions(ExpressionParser.ErrorHandling.KEEP);
-            Result<IExpression> parse = nodeReader.parse(constraint.toString(false, ""));
-            if (parse.isEmpty()) {
-                FeatJAR.log().problems(parse.getProblems());
-            } else {
-                FeatJAR.log().debug(Expressions.print(parse.get()));
+            expressionParser.set(nodeReader);
+        }
+        return nodeReader;
+    }
+
+    /**
+     * Converts UVL constraints to FeatJAR formulas.
+     * @param uvlConstraints The UVL constraints to convert.
+     * @return A list of FeatJAR formulas.
+     */
+    public static List<IFormula> uvlConstraintToFormula(List<Constraint> uvlConstraints) throws ClassNotFoundException {
+        return uvlConstraintToFormula(uvlConstraints, new SymbolTable());
+    }
+
+    /**
+     * Converts UVL constraints to FeatJAR formulas.
+     * @param uvlConstraints The UVL constraints to convert.
+     * @param symbols The symbol table that stores the names of all variables.
+     * @return A list of FeatJAR formulas.
+     */
+    public static List<IFormula> uvlConstraintToFormula(List<Constraint> uvlConstraints, SymbolTable symbols)
+            throws ClassNotFoundException {
+        final UVLConstraintToFormulaVisitor visitor = new UVLConstraintToFormulaVisitor(symbols);
+        List<IFormula> formulas = new ArrayList<>(uvlConstraints.size());
+        for (Constraint constraint : uvlConstraints) {
+            Result<IFormula> formula = visitor.visit(constraint);
+            if (formula.isEmpty()) {
+                FeatJAR.log().problems(formula.getProblems());
             }
-            formulas.add((IFormula) parse.get());
+            formulas.add(formula.get());
         }
 
         return formulas;
@@ -73,9 +129,20 @@ public class UVLUtils {
      * @return A FeatJAR feature model.
      */
     public static IFeatureModel createFeatureModel(de.vill.model.FeatureModel uvlFeatureModel) throws ParseException {
+        return createFeatureModel(uvlFeatureModel, new SymbolTable());
+    }
+
+    /**
+     * Converts UVL feature model to FeatJAR feature model.
+     * @param uvlFeatureModel The UVL feature model to convert.
+     * @param symbols The symbol table that stores the names of all features.
+     * @return A FeatJAR feature model.
+     */
+    public static IFeatureModel createFeatureModel(de.vill.model.FeatureModel uvlFeatureModel, SymbolTable symbols)
+            throws ParseException {
         IFeatureModel featureModel = new FeatureModel();
         de.vill.model.Feature rootFeature = uvlFeatureModel.getRootFeature();
-        UVLUtils.createFeatureTree(featureModel, rootFeature);
+        UVLUtils.createFeatureTree(featureModel, rootFeature, symbols);
 
         return featureModel;
     }
@@ -88,7 +155,24 @@ public class UVLUtils {
      */
     public static IFeature createFeature(IFeatureModel featureModel, de.vill.model.Feature uvlFeature)
             throws ParseException {
-        IFeature feature = featureModel.mutate().addFeature(getName(uvlFeature));
+        return createFeature(featureModel, uvlFeature, getName(uvlFeature));
+    }
+
+    /**
+     * Converts UVL feature to FeatJAR feature.
+     * @param featureModel The corresponding feature model of the feature.
+     * @param uvlFeature The UVL feature to convert.
+     * @param symbols The symbol table that stores the names of all features.
+     * @return A FeatJAR feature.
+     */
+    public static IFeature createFeature(
+            IFeatureModel featureModel, de.vill.model.Feature uvlFeature, SymbolTable symbols) throws ParseException {
+        return createFeature(featureModel, uvlFeature, getName(uvlFeature, symbols));
+    }
+
+    private static IFeature createFeature(IFeatureModel featureModel, de.vill.model.Feature uvlFeature, String name)
+            throws ParseException {
+        IFeature feature = featureModel.mutate().addFeature(name);
         feature.mutate().setAbstract(getAttributeValue(uvlFeature, "abstract", Boolean.FALSE));
         feature.mutate().setType(getFeatureType(uvlFeature));
         return feature;
@@ -101,10 +185,22 @@ public class UVLUtils {
      */
     public static void createFeatureTree(IFeatureModel featureModel, de.vill.model.Feature rootUVLFeature)
             throws ParseException {
+        createFeatureTree(featureModel, rootUVLFeature, new SymbolTable());
+    }
+
+    /**
+     * Builds a FeatJAR feature model from a UVL root feature.
+     * @param featureModel FeatJAR feature model to build.
+     * @param rootUVLFeature UVL root feature from a UVL feature model.
+     * @param symbols The symbol table that stores the names of all features.
+     */
+    public static void createFeatureTree(
+            IFeatureModel featureModel, de.vill.model.Feature rootUVLFeature, SymbolTable symbols)
+            throws ParseException {
         LinkedList<de.vill.model.Feature> featureStack = new LinkedList<>();
         LinkedList<IFeatureTree> featureTreeStack = new LinkedList<>();
 
-        IFeature rootFeature = createFeature(featureModel, rootUVLFeature);
+        IFeature rootFeature = createFeature(featureModel, rootUVLFeature, symbols);
         IFeatureTree featureTree = featureModel.mutate().addFeatureTreeRoot(rootFeature);
 
         featureStack.push(rootUVLFeature);
@@ -151,8 +247,11 @@ public class UVLUtils {
                         groupRange = Range.atLeast(1);
                         break;
                     case GROUP_CARDINALITY:
-                        groupRange = Range.of(
-                                Integer.parseInt(feature.getLowerBound()), Integer.parseInt(feature.getUpperBound()));
+                        groupRange = "*".equals(group.getUpperBound())
+                                ? Range.atLeast(Integer.parseInt(group.getLowerBound()))
+                                : Range.of(
+                                        Integer.parseInt(group.getLowerBound()),
+                                        Integer.parseInt(group.getUpperBound()));
                         break;
                     default:
                         throw new ParseException(String.valueOf(group.GROUPTYPE));
@@ -161,7 +260,7 @@ public class UVLUtils {
                 tree.mutate().addGroup(groupRange);
                 for (de.vill.model.Feature childFeature : group.getFeatures()) {
                     featureStack.push(childFeature);
-                    IFeature child = createFeature(featureModel, childFeature);
+                    IFeature child = createFeature(featureModel, childFeature, symbols);
                     IFeatureTree childTree = tree.mutate().addFeatureBelow(child);
                     childTree.mutate().setGroupID(groupID);
                     featureTreeStack.push(childTree);
@@ -202,7 +301,19 @@ public class UVLUtils {
      */
     public static String getName(de.vill.model.Feature feature) {
         String nameSpace = feature.getNameSpace();
-        return (nameSpace != null && !nameSpace.isBlank() ? nameSpace + "::" : "") + feature.getFeatureName();
+        return nameSpace != null && !nameSpace.isBlank()
+                ? nameSpace + "::" + feature.getFeatureName()
+                : feature.getFeatureName();
+    }
+
+    /**
+     * Retrieves name and namespace of a UVL feature and stores it in the given symbol table.
+     * @param feature UVL feature to retrieve the name and namespace.
+     * @param symbols The symbol table.
+     * @return The instance of the name that is stored in the symbol table.
+     */
+    public static String getName(de.vill.model.Feature feature, SymbolTable symbols) {
+        return symbols.canonicalize(getName(feature));
     }
 
     /**
@@ -220,9 +331,11 @@ public class UVLUtils {
     }
 
     /**
-     * Creates a new formula where exactly k of the n provided formulas must be satisfied.
+     * Creates a new formula that contains a clause for each combination of k of the n provided formulas.
+     * Thus, at least n - k + 1 of the formulas must be satisfied, or, if negated, at most k - 1.
+     * The provided array is not modified.
      * @param elements The n formulas.
-     * @param k Specifies how many of the n formulas must exactly be satisfied.
+     * @param k The size of each clause.
      * @param negated Negates all literals.
      * @return n choose k formula.
      */
@@ -231,52 +344,368 @@ public class UVLUtils {
 
         // return tautology
         if ((k == 0) || (k == (n + 1))) {
-            return new Or(new Not(elements[0]), elements[0]);
+            return n == 0 ? True.INSTANCE : new Or(new Not(elements[0]), elements[0]);
         }
 
         // return contradiction
         if ((k < 0) || (k > (n + 1))) {
-            return new And(new Not(elements[0]), elements[0]);
+            return n == 0 ? False.INSTANCE : new And(new Not(elements[0]), elements[0]);
         }
 
-        final IFormula[] newNodes = new IFormula[(int) binomial(n, k)];
-        int j = 0;
-
-        // negate all elements
+        final IFormula[] literals = negated ? new IFormula[n] : elements;
         if (negated) {
-            negateNodes(elements);
+            for (int i = 0; i < n; i++) {
+                literals[i] = new Not(elements[i]);
+            }
+        }
+
+        final List<IFormula> newNodes = new ArrayList<>();
+        final Iterator<int[]> combinations = combinations(n, k);
+        while (combinations.hasNext()) {
+            final int[] combination = combinations.next();
+            final IFormula[] clause = new IFormula[k];
+            for (int i = 0; i < k; i++) {
+                clause[i] = literals[combination[i]];
+            }
+            newNodes.add(new Or(clause));
         }
+        return new And(newNodes);
+    }
 
-        final IFormula[] clause = new IFormula[k];
-        final int[] index = new int[k];
+    /**
+     * Lazily creates a clause for each combination of k of the provided literals.
+     * In contrast to {@link #nchoosek(IFormula[], int, boolean)}, no formula is created, so the clauses can be
+     * consumed directly, e.g., by a CNF builder.
+     * @param literals The n literals as variable indices. Negative values denote negated variables.
+     * @param k The size of each clause.
+     * @param negated Negates all literals.
+     * @return A stream of n choose k clauses. Each clause is a new array.
+     */
+    public static Stream<int[]> nchoosekClauses(int[] literals, int k, boolean negated) {
+        final int sign = negated ? -1 : 1;
+        return combinationStream(literals.length, k).map(combination -> {
+            final int[] clause = new int[combination.length];
+            for (int i = 0; i < clause.length; i++) {
+                clause[i] = sign * literals[combination[i]];
+            }
+            return clause;
+        });
+    }
 
-        // the position that is currently filled in clause
-        int level = 0;
-        index[level] = -1;
+    /**
+     * Lazily enumerates all combinations of k of n elements in lexicographic order.
+     * To avoid allocations, the returned iterator always returns the same array, which contains the indices of the
+     * elements of the current combination. It must be copied if it is kept beyond the next call to {@code next()}.
+     * @param n The number of elements.
+     * @param k The size of each combination.
+     * @return An iterator over all combinations.
+     */
+    public static Iterator<int[]> combinations(int n, int k) {
+        return new CombinationIterator(n, k);
+    }
+
+    /**
+     * Lazily enumerates all combinations of k of n elements in lexicographic order.
+     * Just like {@link #combinations(int, int)}, the stream always provides the same array.
+     * @param n The number of elements.
+     * @param k The size of each combination.
+     * @return A sequential stream of all combinations.
+     */
+    public static Stream<int[]> combinationStream(int n, int k) {
+        final long size = binomialOrMaximum(n, k);
+        final int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+        return StreamSupport.stream(
+                size < Long.MAX_VALUE
+                        ? Spliterators.spliterator(combinations(n, k), size, characteristics)
+                        : Spliterators.spliteratorUnknownSize(combinations(n, k), characteristics),
+                false);
+    }
+
+    private static final class CombinationIterator implements Iterator<int[]> {
+        private final int n;
+        private final int[] combination;
+        private boolean first;
+        private boolean hasNext;
+
+        private CombinationIterator(int n, int k) {
+            this.n = n;
+            combination = new int[Math.max(k, 0)];
+            for (int i = 0; i < combination.length; i++) {
+                combination[i] = i;
+            }
+            first = true;
+            hasNext = k >= 0 && k <= n;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
 
-        while (level >= 0) {
-            // fill this level with the next element
-            index[level]++;
-            // did we reach the maximum for this level
-            if (index[level] >= (n - (k - 1 - level))) {
-                // go to previous level
-                level--;
+        @Override
+        public int[] next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+            final int k = combination.length;
+            if (first) {
+                first = false;
             } else {
-                clause[level] = elements[index[level]];
-                if (level == (k - 1)) {
-                    newNodes[j++] = new Or(clause);
+                int level = k - 1;
+                while (combination[level] == n - k + level) {
+                    level--;
+                }
+                combination[level]++;
+                for (int i = level + 1; i < k; i++) {
+                    combination[i] = combination[i - 1] + 1;
+                }
+            }
+            // the last combination is (n - k, ..., n - 1)
+            hasNext = k > 0 && combination[0] < n - k;
+            return combination;
+        }
+    }
+
+    /**
+     * Creates a new formula where exactly one of the provided formulas must be satisfied.
+     * The formula contains the definitions of its auxiliary variables, so it must not be nested below other formulas.
+     * @param elements The formulas.
+     * @param encoding The encoding to use.
+     * @param auxiliaryName Unique name that is used to derive the names of auxiliary variables,
+     * see {@link #getAuxiliaryName(String...)}.
+     * @return exactly one formula.
+     */
+    public static IFormula alternative(IFormula[] elements, GroupEncoding encoding, String auxiliaryName) {
+        final List<IFormula> definitions = new ArrayList<>();
+        return withDefinitions(alternative(elements, encoding, auxiliaryName, definitions), definitions);
+    }
+
+    /**
+     * Creates a new formula where exactly one of the provided formulas must be satisfied.
+     * The definitions of auxiliary variables are added to the given list instead, so the formula can be nested, e.g.,
+     * below the parent of a group. The definitions must hold unconditionally, so that the auxiliary variables stay
+     * determined by the elements when the formula is not active.
+     * @param elements The formulas.
+     * @param encoding The encoding to use.
+     * @param auxiliaryName Unique name that is used to derive the names of auxiliary variables.
+     * @param definitions The list to which the definitions of auxiliary variables are added.
+     * @return exactly one formula.
+     */
+    public static IFormula alternative(
+            IFormula[] elements, GroupEncoding encoding, String auxiliaryName, List<IFormula> definitions) {
+        switch (encoding.forAlternative(elements.length)) {
+            case BINOMIAL:
+                return new And(new Or(elements), nchoosek(Arrays.copyOf(elements, elements.length), 2, true));
+            case SEQUENTIAL_COUNTER:
+                return ladder(elements, auxiliaryName, definitions);
+            default:
+                throw new IllegalArgumentException(String.valueOf(encoding));
+        }
+    }
+
+    /**
+     * Creates a ladder encoding where exactly one of the provided formulas must be satisfied.
+     * The auxiliary variable y_i is equivalent to (x_1 | ... | x_i), thus it is fully determined by the elements.
+     * @param elements The formulas.
+     * @param auxiliaryName Unique name that is used to derive the names of auxiliary variables.
+     * @param definitions The list to which the definitions of auxiliary variables are added.
+     * @return exactly one formula of linear size.
+     */
+    protected static IFormula ladder(IFormula[] elements, String auxiliaryName, List<IFormula> definitions) {
+        final int n = elements.length;
+        if (n == 0) {
+            return False.INSTANCE;
+        }
+        if (n == 1) {
+            return elements[0];
+        }
+        final List<IFormula> clauses = new ArrayList<>(2 * n);
+        IFormula previous = new Literal(getAuxiliaryVariableName(LADDER_ENCODER, auxiliaryName, 1));
+        definitions.add(new BiImplies(previous, elements[0]));
+        for (int i = 1; i < n - 1; i++) {
+            Literal current = new Literal(getAuxiliaryVariableName(LADDER_ENCODER, auxiliaryName, i + 1));
+            definitions.add(new BiImplies(current, new Or(previous, elements[i])));
+            clauses.add(new Implies(elements[i], new Not(previous)));
+            previous = current;
+        }
+        clauses.add(new Implies(elements[n - 1], new Not(previous)));
+        clauses.add(new Or(previous, elements[n - 1]));
+        return new And(clauses);
+    }
+
+    private static IFormula withDefinitions(IFormula formula, List<IFormula> definitions) {
+        if (definitions.isEmpty()) {
+            return formula;
+        }
+        final List<IFormula> conjuncts = new ArrayList<>(definitions);
+        conjuncts.add(formula);
+        return new And(conjuncts);
+    }
+
+    /**
+     * Creates a new formula where at least lower and at most upper of the provided formulas must be satisfied.
+     * The formula contains the definitions of its auxiliary variables, so it must not be nested below other formulas.
+     * @param elements The formulas.
+     * @param lower The minimum number of formulas to satisfy.
+     * @param upper The maximum number of formulas to satisfy. A negative value denotes no upper bound.
+     * @param encoding The encoding to use.
+     * @param auxiliaryName Unique name that is used to derive the names of auxiliary variables.
+     * @return cardinality formula.
+     */
+    public static IFormula between(
+            IFormula[] elements, int lower, int upper, GroupEncoding encoding, String auxiliaryName) {
+        final List<IFormula> definitions = new ArrayList<>();
+        return withDefinitions(between(elements, lower, upper, encoding, auxiliaryName, definitions), definitions);
+    }
+
+    /**
+     * Creates a new formula where at least lower and at most upper of the provided formulas must be satisfied.
+     * The definitions of auxiliary variables are added to the given list instead, see
+     * {@link #alternative(IFormula[], GroupEncoding, String, List)}.
+     * @param elements The formulas.
+     * @param lower The minimum number of formulas to satisfy.
+     * @param upper The maximum number of formulas to satisfy. A negative value denotes no upper bound.
+     * @param encoding The encoding to use.
+     * @param auxiliaryName Unique name that is used to derive the names of auxiliary variables.
+     * @param definitions The list to which the definitions of auxiliary variables are added.
+     * @return cardinality formula.
+     */
+    public static IFormula between(
+            IFormula[] elements,
+            int lower,
+            int upper,
+            GroupEncoding encoding,
+            String auxiliaryName,
+            List<IFormula> definitions) {
+        final int n = elements.length;
+        lower = Math.max(lower, 0);
+        upper = upper < 0 ? n : Math.min(upper, n);
+        if (lower > upper) {
+            return False.INSTANCE;
+        }
+        if (lower == 0 && upper == n) {
+            return True.INSTANCE;
+        }
+        if (lower == 1 && upper == 1) {
+            return alternative(elements, encoding, auxiliaryName, definitions);
+        }
+        switch (encoding.forGroup(n, lower, upper)) {
+            case BINOMIAL:
+                final List<IFormula> clauses = new ArrayList<>(2);
+                if (lower > 0) {
+                    clauses.add(nchoosek(Arrays.copyOf(elements, n), n - lower + 1, false));
+                }
+                if (upper < n) {
+                    clauses.add(nchoosek(Arrays.copyOf(elements, n), upper + 1, true));
+                }
+                return new And(clauses);
+            case SEQUENTIAL_COUNTER:
+                return sequentialCounter(elements, lower, upper, auxiliaryName, definitions);
+            default:
+                throw new IllegalArgumentException(String.valueOf(encoding));
+        }
+    }
+
+    /**
+     * Creates a sequential counter where at least lower and at most upper of the provided formulas must be satisfied.
+     * The auxiliary variable s_i_j is equivalent to "at least j of x_1, ..., x_i are satisfied", thus it is fully
+     * determined by the elements.
+     * @param elements The formulas.
+     * @param lower The minimum number of formulas to satisfy, must be less than or equal to the number of formulas.
+     * @param upper The maximum number of formulas to satisfy, must be less than or equal to the number of formulas.
+     * @param auxiliaryName Unique name that is used to derive the names of auxiliary variables.
+     * @param definitions The list to which the definitions of auxiliary variables are added.
+     * @return cardinality formula of size O(n * upper).
+     */
+    protected static IFormula sequentialCounter(
+            IFormula[] elements, int lower, int upper, String auxiliaryName, List<IFormula> definitions) {
+        final int n = elements.length;
+        final int m = upper < n ? upper + 1 : lower;
+        final List<IFormula> clauses = new ArrayList<>(2);
+        IFormula[] previous = new IFormula[0];
+        for (int i = 1; i <= n; i++) {
+            final IFormula element = elements[i - 1];
+            final IFormula[] current = new IFormula[Math.min(i, m)];
+            for (int j = 1; j <= current.length; j++) {
+                final IFormula definition;
+                if (j == 1) {
+                    definition = i == 1 ? element : new Or(previous[0], element);
+                } else if (j == i) {
+                    definition = new And(previous[j - 2], element);
                 } else {
-                    // go to next level
-                    level++;
-                    // allow only ascending orders (to prevent from duplicates)
-                    index[level] = index[level - 1];
+                    definition = new Or(previous[j - 1], new And(previous[j - 2], element));
                 }
+                final Literal counter =
+                        new Literal(getAuxiliaryVariableName(COUNTER_ENCODER, auxiliaryName, i + "_" + j));
+                definitions.add(new BiImplies(counter, definition));
+                current[j - 1] = counter;
             }
+            previous = current;
         }
-        if (j != newNodes.length) {
-            throw new RuntimeException("Pre-calculation of the number of elements failed!");
+        if (lower > 0) {
+            clauses.add(previous[lower - 1]);
         }
-        return new And(newNodes);
+        if (upper < n) {
+            clauses.add(new Not(previous[upper]));
+        }
+        return new And(clauses);
+    }
+
+    /**
+     * Checks whether a variable was introduced when encoding feature groups.
+     * @param variableName The name of the variable.
+     * @return Whether the variable is an auxiliary variable.
+     */
+    public static boolean isAuxiliaryVariable(String variableName) {
+        return variableName.startsWith(AUXILIARY_VARIABLE_PREFIX);
+    }
+
+    /**
+     * Returns a name that is shared by related auxiliary variables, e.g., those of one group.
+     * The components, e.g., the name of the parent feature and the index of the group, are escaped and separated
+     * by {@code #}, so different components never result in the same name.
+     * @param components The components of the name.
+     * @return The name.
+     */
+    public static String getAuxiliaryName(String... components) {
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < components.length; i++) {
+            if (i > 0) {
+                name.append(AUXILIARY_SEPARATOR);
+            }
+            for (int j = 0; j < components[i].length(); j++) {
+                final char c = components[i].charAt(j);
+                if (c == AUXILIARY_SEPARATOR || c == AUXILIARY_ESCAPE) {
+                    name.append(AUXILIARY_ESCAPE);
+                }
+                name.append(c);
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * Returns the name of an auxiliary variable that belongs to no feature, which is recognized by
+     * {@link #isAuxiliaryVariable(String)}.
+     * @param encoder The name of the encoding that introduces the variable, which must not contain {@code #}.
+     * @param index The index of the variable among those of the encoding, which must not contain {@code #}.
+     * @return The name of the auxiliary variable.
+     */
+    public static String getAuxiliaryVariableName(String encoder, Object index) {
+        return AUXILIARY_VARIABLE_PREFIX + encoder + AUXILIARY_SEPARATOR + index;
+    }
+
+    /**
+     * Returns the name of an auxiliary variable, which is recognized by {@link #isAuxiliaryVariable(String)}.
+     * Names of different encodings, auxiliary names and indices never collide with each other.
+     * @param encoder The name of the encoding that introduces the variable, which must not contain {@code #}.
+     * @param auxiliaryName The name that is shared by related auxiliary variables, see
+     * {@link #getAuxiliaryName(String...)}.
+     * @param index The index of the variable among them, which must not contain {@code #}.
+     * @return The name of the auxiliary variable.
+     */
+    public static String getAuxiliaryVariableName(String encoder, String auxiliaryName, Object index) {
+        return AUXILIARY_VARIABLE_PREFIX + encoder + AUXILIARY_SEPARATOR + auxiliaryName + AUXILIARY_SEPARATOR + index;
     }
 
     /**
@@ -284,9 +713,57 @@ public class UVLUtils {
      * @param n Size of the set.
      * @param k Size of the possible subsets.
      * @return Result of n choose k.
+     * @throws ArithmeticException If the result does not fit into a long.
      */
     public static long binomial(int n, int k) {
-        return new BinomialCalculator(n, k).binomial();
+        if (k < 0 || k > n) {
+            return 0;
+        }
+        k = Math.min(k, n - k);
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            // result * (n - k + i) is always divisible by i, dividing by the gcd first avoids spurious overflows
+            final long gcd = gcd(result, i);
+            result = Math.multiplyExact(result / gcd, (n - k + i) / (i / gcd));
+        }
+        return result;
+    }
+
+    /**
+     * The number of ways selecting k things out of n things in a set.
+     * Uses {@link #binomial(int, int)} if possible and falls back to arbitrary precision otherwise.
+     * @param n Size of the set.
+     * @param k Size of the possible subsets.
+     * @return Result of n choose k.
+     */
+    public static BigInteger binomialExact(int n, int k) {
+        try {
+            return BigInteger.valueOf(binomial(n, k));
+        } catch (ArithmeticException e) {
+            k = Math.min(k, n - k);
+            BigInteger result = BigInteger.ONE;
+            for (int i = 1; i <= k; i++) {
+                result = result.multiply(BigInteger.valueOf(n - k + i)).divide(BigInteger.valueOf(i));
+            }
+            return result;
+        }
+    }
+
+    private static long binomialOrMaximum(int n, int k) {
+        try {
+            return binomial(n, k);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            final long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
     }
 
     protected static void negateNodes(IFormula[] nodes) {
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Reads and writes variable-length integers, which use one byte for every seven bits of a value.
+ * Signed values are zig-zag encoded first, so values of small magnitude are short regardless of their sign.
+ */
+public final class VarInts {
+
+    private VarInts() {}
+
+    /**
+     * Writes a non-negative integer.
+     * @param out The output stream.
+     * @param value The integer, which is treated as unsigned.
+     * @throws IOException If the output stream fails.
+     */
+    public static void write(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Writes a signed integer.
+     * @param out The output stream.
+     * @param value The integer.
+     * @throws IOException If the output stream fails.
+     */
+    public static void writeSigned(OutputStream out, int value) throws IOException {
+        write(out, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Reads a non-negative integer.
+     * @param in The input stream.
+     * @return The integer.
+     * @throws IOException If the input stream fails, ends early, or contains a malformed integer.
+     */
+    public static int read(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of input");
+            }
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    /**
+     * Reads a signed integer.
+     * @param in The input stream.
+     * @return The integer.
+     * @throws IOException If the input stream fails, ends early, or contains a malformed integer.
+     */
+    public static int readSigned(InputStream in) throws IOException {
+        int value = read(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
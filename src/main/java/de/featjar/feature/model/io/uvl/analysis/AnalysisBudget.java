@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Limits the time and memory of one analysis and allows to cancel it.
+ * Analyses check {@link #isExhausted()} cooperatively, e.g., between two solver queries, and register
+ * {@link #onCancel(Runnable) listeners} that interrupt long-running solver calls.
+ * Memory is measured as the bytes allocated by all threads that {@link #track() work} for the analysis,
+ * which bounds the garbage the analysis produces rather than its live heap.
+ */
+public class AnalysisBudget {
+
+    private final long timeoutMillis;
+    private final long maxAllocatedBytes;
+    private final Map<Long, Long> allocationBaselines = new ConcurrentHashMap<>();
+    private final List<Runnable> cancelListeners = new CopyOnWriteArrayList<>();
+    private volatile long deadline;
+    private volatile String exhaustion;
+    private boolean finished;
+
+    /**
+     * Creates a new budget.
+     * @param timeoutMillis The maximum time in milliseconds, or {@code 0} for no timeout.
+     * @param maxAllocatedBytes The maximum number of allocated bytes, or {@code 0} for no limit.
+     */
+    public AnalysisBudget(long timeoutMillis, long maxAllocatedBytes) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative: " + timeoutMillis);
+        }
+        if (maxAllocatedBytes < 0) {
+            throw new IllegalArgumentException("Memory budget must not be negative: " + maxAllocatedBytes);
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.maxAllocatedBytes = maxAllocatedBytes;
+    }
+
+    /**
+     * Returns a budget without limits, which can still be cancelled.
+     * @return A new budget.
+     */
+    public static AnalysisBudget unlimited() {
+        return new AnalysisBudget(0, 0);
+    }
+
+    /**
+     * Starts the timeout and tracks the allocations of the current thread.
+     * @return This budget.
+     */
+    public AnalysisBudget start() {
+        if (timeoutMillis != 0 && deadline == 0) {
+            deadline = System.currentTimeMillis() + timeoutMillis;
+        }
+        track();
+        return this;
+    }
+
+    /**
+     * Counts the allocations of the current thread from now on against this budget.
+     */
+    public void track() {
+        long allocatedBytes = AnalysisMetrics.getAllocatedBytes();
+        if (allocatedBytes >= 0) {
+            allocationBaselines.putIfAbsent(Thread.currentThread().getId(), allocatedBytes);
+        }
+    }
+
+    /**
+     * Cancels the analysis and notifies all listeners. Has no effect if the budget is already exhausted.
+     */
+    public void cancel() {
+        exhaust("Analysis was cancelled");
+    }
+
+    /**
+     * Registers a listener that is called once the budget is exhausted, e.g., to expire a solver's timeout.
+     * The listener is called immediately if the budget is already exhausted, and never if the analysis finished.
+     * @param listener The listener.
+     */
+    public synchronized void onCancel(Runnable listener) {
+        if (finished) {
+            return;
+        }
+        cancelListeners.add(listener);
+        if (exhaustion != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Marks the analysis as finished and removes all listeners, so exhausting the budget later, e.g., when its
+     * deadline passes, does not interrupt solver calls of other analyses on the same solver.
+     */
+    public synchronized void finish() {
+        finished = true;
+        cancelListeners.clear();
+    }
+
+    /**
+     * Returns whether the analysis should stop, because it was cancelled or exceeded its time or memory.
+     * @return Whether the budget is exhausted.
+     */
+    public boolean isExhausted() {
+        if (exhaustion != null) {
+            return true;
+        }
+        if (deadline != 0 && System.currentTimeMillis() >= deadline) {
+            exhaust("Analysis exceeded its time budget of " + timeoutMillis + " ms");
+        } else if (maxAllocatedBytes != 0 && getAllocatedBytes() > maxAllocatedBytes) {
+            exhaust("Analysis exceeded its memory budget of " + maxAllocatedBytes + " bytes");
+        }
+        return exhaustion != null;
+    }
+
+    /**
+     * Returns why the budget is exhausted.
+     * @return The reason, or {@code null} if the budget is not exhausted.
+     */
+    public String getExhaustion() {
+        return exhaustion;
+    }
+
+    /**
+     * Returns the remaining time.
+     * @return The remaining time in milliseconds, {@code 0} if it expired, or {@link Long#MAX_VALUE} if there is
+     * no timeout or it was not started yet.
+     */
+    public long getRemainingMillis() {
+        if (deadline == 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    private long getAllocatedBytes() {
+        long allocatedBytes = 0;
+        for (Map.Entry<Long, Long> baseline : allocationBaselines.entrySet()) {
+            long threadBytes = AnalysisMetrics.getAllocatedBytes(baseline.getKey());
+            if (threadBytes >= 0) {
+                allocatedBytes += threadBytes - baseline.getValue();
+            }
+        }
+        return allocatedBytes;
+    }
+
+    private synchronized void exhaust(String reason) {
+        if (exhaustion != null) {
+            return;
+        }
+        exhaustion = reason;
+        for (Runnable listener : cancelListeners) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.sat4j.specs.ISolver;
+
+/**
+ * Records the wall time, the allocated bytes and, for analyses on a known SAT4J solver, the solver statistics of
+ * each pipeline stage and analysis.
+ * A measurement is started by {@link #start(String, ISolver)} on the thread that performs the work and stopped by
+ * {@link Probe#stop()} on the same thread, as allocated bytes are counted per thread.
+ * Analyses that create their own solvers internally (e.g., {@code ComputeIndeterminateSat4J}) have no solver statistics.
+ * Solver statistics are read while holding the solver, which is the lock of a {@link SolverSession}, so they are
+ * accurate if the measured analysis holds the solver as well, as the {@link AnalysisScheduler} ensures.
+ * Each measurement is also committed as an {@link AnalysisEvent}, which is recorded whenever a JFR recording
+ * enables it.
+ */
+public class AnalysisMetrics {
+
+    public static final String WALL_NANOS = "wallNanos";
+    public static final String ALLOCATED_BYTES = "allocatedBytes";
+    public static final String DECISIONS = "decisions";
+    public static final String CONFLICTS = "conflicts";
+    public static final String PROPAGATIONS = "propagations";
+    public static final String LEARNED_CLAUSES = "learnedclauses";
+
+    private static final String[] SOLVER_STATISTICS = {DECISIONS, CONFLICTS, PROPAGATIONS, LEARNED_CLAUSES};
+
+    /**
+     * A measurement of a pipeline stage or an analysis, recorded by JFR.
+     */
+    @Name("de.featjar.uvl.Analysis")
+    @Label("FeatJAR Analysis")
+    @Category({"FeatJAR", "UVL"})
+    public static class AnalysisEvent extends Event {
+        @Label("Name")
+        String name;
+
+        @Label("Allocated Bytes")
+        @DataAmount
+        long allocatedBytes;
+
+        @Label("Decisions")
+        long decisions;
+
+        @Label("Conflicts")
+        long conflicts;
+
+        @Label("Propagations")
+        long propagations;
+
+        @Label("Learned Clauses")
+        long learnedClauses;
+    }
+
+    /**
+     * A started measurement.
+     */
+    public final class Probe {
+        private final String name;
+        private final ISolver solver;
+        private final long[] solverStatistics;
+        private final long allocatedBytes;
+        private final long start;
+        private final AnalysisEvent event;
+
+        private Probe(String name, ISolver solver) {
+            this.name = name;
+            this.solver = solver;
+            solverStatistics = solver != null ? getSolverStatistics(solver) : null;
+            event = jfrEnabled ? new AnalysisEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            allocatedBytes = getAllocatedBytes();
+            start = System.nanoTime();
+        }
+
+        /**
+         * Stops this measurement and records it.
+         */
+        public void stop() {
+            long wallNanos = System.nanoTime() - start;
+            long allocated = allocatedBytes < 0 ? -1 : getAllocatedBytes() - allocatedBytes;
+            Map<String, Number> measurement = new LinkedHashMap<>();
+            measurement.put(WALL_NANOS, wallNanos);
+            if (allocated >= 0) {
+                measurement.put(ALLOCATED_BYTES, allocated);
+            }
+            long[] statistics = null;
+            if (solver != null) {
+                statistics = getSolverStatistics(solver);
+                for (int i = 0; i < SOLVER_STATISTICS.length; i++) {
+                    statistics[i] -= solverStatistics[i];
+                    measurement.put(SOLVER_STATISTICS[i], statistics[i]);
+                }
+            }
+            synchronized (AnalysisMetrics.this) {
+                measurements.put(name, Collections.unmodifiableMap(measurement));
+            }
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.name = name;
+                    event.allocatedBytes = allocated;
+                    if (statistics != null) {
+                        event.decisions = statistics[0];
+                        event.conflicts = statistics[1];
+                        event.propagations = statistics[2];
+                        event.learnedClauses = statistics[3];
+                    }
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    private final Map<String, Map<String, Number>> measurements = new LinkedHashMap<>();
+    private boolean jfrEnabled = true;
+
+    /**
+     * Sets whether measurements are committed as JFR events. They are only recorded if a JFR recording enables
+     * {@code de.featjar.uvl.Analysis}.
+     * @param jfrEnabled Whether JFR events are created.
+     */
+    public void setJFREnabled(boolean jfrEnabled) {
+        this.jfrEnabled = jfrEnabled;
+    }
+
+    /**
+     * Starts a measurement on the current thread.
+     * @param name The name of the stage or analysis.
+     * @param solver The solver used by the analysis, or {@code null}.
+     * @return The probe that stops the measurement.
+     */
+    public Probe start(String name, ISolver solver) {
+        return new Probe(name, solver);
+    }
+
+    /**
+     * Records a measurement that was taken elsewhere, replacing a measurement with the same name.
+     * @param name The name of the stage or analysis.
+     * @param measurement A map from metric name to value.
+     */
+    public synchronized void put(String name, Map<String, Number> measurement) {
+        measurements.put(name, Collections.unmodifiableMap(new LinkedHashMap<>(measurement)));
+    }
+
+    /**
+     * Adds all measurements of the given metrics, replacing measurements with the same name.
+     * @param metrics The metrics.
+     */
+    public void putAll(AnalysisMetrics metrics) {
+        Map<String, Map<String, Number>> other = metrics.getMeasurements();
+        synchronized (this) {
+            measurements.putAll(other);
+        }
+    }
+
+    /**
+     * Returns all measurements.
+     * @return A map from stage or analysis name to a map from metric name to value, in the order of measurement.
+     */
+    public synchronized Map<String, Map<String, Number>> getMeasurements() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(measurements));
+    }
+
+    /**
+     * Returns the wall time of each measurement.
+     * @return A map from stage or analysis name to time in nanoseconds, in the order of measurement.
+     */
+    public synchronized Map<String, Long> getWallNanos() {
+        Map<String, Long> wallNanos = new LinkedHashMap<>();
+        measurements.forEach((name, measurement) -> {
+            Number value = measurement.get(WALL_NANOS);
+            if (value != null) {
+                wallNanos.put(name, value.longValue());
+            }
+        });
+        return Collections.unmodifiableMap(wallNanos);
+    }
+
+    /**
+     * Returns all measurements as a single map.
+     * @return A map from {@code <stage or analysis>.<metric>} to value, e.g., {@code core.conflicts}.
+     */
+    public synchronized Map<String, Number> toMap() {
+        Map<String, Number> map = new LinkedHashMap<>();
+        measurements.forEach((name, measurement) ->
+                measurement.forEach((metric, value) -> map.put(name + "." + metric, value)));
+        return map;
+    }
+
+    private static long[] getSolverStatistics(ISolver solver) {
+        Map<String, Number> statistics;
+        synchronized (solver) {
+            statistics = solver.getStat();
+        }
+        long[] values = new long[SOLVER_STATISTICS.length];
+        for (int i = 0; i < values.length; i++) {
+            Number value = statistics.get(SOLVER_STATISTICS[i]);
+            values[i] = value != null ? value.longValue() : 0;
+        }
+        return values;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far.
+     * @return The number of bytes, or {@code -1} if the JVM does not support counting them.
+     */
+    static long getAllocatedBytes() {
+        return getAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns the number of bytes allocated by the given thread so far.
+     * @return The number of bytes, or {@code -1} if the JVM does not support counting them or the thread terminated.
+     */
+    static long getAllocatedBytes(long threadId) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(threadId);
+            }
+        }
+        return -1;
+    }
+}
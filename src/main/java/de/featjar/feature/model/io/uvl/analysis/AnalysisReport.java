@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import de.featjar.base.data.Problem;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignmentList;
+import de.featjar.formula.assignment.BooleanClauseList;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the results of all analyses run by {@link de.featjar.feature.model.io.uvl.ComputeAnalysis}.
+ * Results of analyses that were not run are {@code null}.
+ */
+public class AnalysisReport {
+
+    private final VariableMap variableMap;
+    private final List<String> stages = new ArrayList<>();
+    private final List<String> analyses = new ArrayList<>();
+    private final List<Problem> problems = new ArrayList<>();
+    private final AnalysisMetrics metrics = new AnalysisMetrics();
+    private final List<String> partialAnalyses = new ArrayList<>();
+
+    private Boolean satisfiable;
+    private BooleanAssignment indeterminate;
+    private BooleanClauseList contradictingClauses;
+    private BooleanAssignment coreAndDeadFeatures;
+    private Long solutionsEnumerated;
+    private boolean solutionsComplete;
+    private BigInteger solutionCount;
+    private BigInteger solutionCountLowerBound;
+    private BooleanAssignmentList atomicSets;
+    private int parallelism = 1;
+    private long elapsedNanos;
+
+    public AnalysisReport(VariableMap variableMap) {
+        this.variableMap = variableMap;
+    }
+
+    public VariableMap getVariableMap() {
+        return variableMap;
+    }
+
+    public Boolean getSatisfiable() {
+        return satisfiable;
+    }
+
+    public void setSatisfiable(Boolean satisfiable) {
+        this.satisfiable = satisfiable;
+    }
+
+    public BooleanAssignment getIndeterminate() {
+        return indeterminate;
+    }
+
+    public void setIndeterminate(BooleanAssignment indeterminate) {
+        this.indeterminate = indeterminate;
+    }
+
+    public BooleanClauseList getContradictingClauses() {
+        return contradictingClauses;
+    }
+
+    public void setContradictingClauses(BooleanClauseList contradictingClauses) {
+        this.contradictingClauses = contradictingClauses;
+    }
+
+    /**
+     * Returns the core and dead features.
+     * @return An assignment containing positive literals for core features and negative literals for dead features.
+     */
+    public BooleanAssignment getCoreAndDeadFeatures() {
+        return coreAndDeadFeatures;
+    }
+
+    public void setCoreAndDeadFeatures(BooleanAssignment coreAndDeadFeatures) {
+        this.coreAndDeadFeatures = coreAndDeadFeatures;
+    }
+
+    /**
+     * Returns the number of solutions that were passed to the solution sink.
+     * @return The number of enumerated solutions, or {@code null} if the enumeration failed or was not run.
+     */
+    public Long getSolutionsEnumerated() {
+        return solutionsEnumerated;
+    }
+
+    public void setSolutionsEnumerated(Long solutionsEnumerated) {
+        this.solutionsEnumerated = solutionsEnumerated;
+    }
+
+    /**
+     * Returns whether all solutions were enumerated, that is, enumeration stopped neither by limit nor by timeout.
+     * @return Whether all solutions were enumerated.
+     */
+    public boolean isSolutionsComplete() {
+        return solutionsComplete;
+    }
+
+    public void setSolutionsComplete(boolean solutionsComplete) {
+        this.solutionsComplete = solutionsComplete;
+    }
+
+    public BigInteger getSolutionCount() {
+        return solutionCount;
+    }
+
+    public void setSolutionCount(BigInteger solutionCount) {
+        this.solutionCount = solutionCount;
+    }
+
+    /**
+     * Returns a lower bound on the number of solutions, which is known if the solution count could not be computed
+     * within its budget.
+     * @return The lower bound, or {@code null} if it is unknown.
+     */
+    public BigInteger getSolutionCountLowerBound() {
+        return solutionCountLowerBound;
+    }
+
+    public void setSolutionCountLowerBound(BigInteger solutionCountLowerBound) {
+        this.solutionCountLowerBound = solutionCountLowerBound;
+    }
+
+    public BooleanAssignmentList getAtomicSets() {
+        return atomicSets;
+    }
+
+    public void setAtomicSets(BooleanAssignmentList atomicSets) {
+        this.atomicSets = atomicSets;
+    }
+
+    /**
+     * Returns the time of each stage of the pipeline that computed the clause list, as measured by the metrics.
+     * @return A map from stage name to time in nanoseconds, in the order of the pipeline.
+     * @see ClauseListPipeline
+     */
+    public Map<String, Long> getStageNanos() {
+        return getWallNanos(stages);
+    }
+
+    /**
+     * Adds a stage whose measurement is contained in the metrics.
+     * @param stage The name of the stage.
+     */
+    public void addStage(String stage) {
+        stages.add(stage);
+    }
+
+    /**
+     * Returns the wall-clock time of each analysis, as measured by the metrics.
+     * @return A map from analysis name to time in nanoseconds, in the order the analyses were scheduled.
+     */
+    public Map<String, Long> getAnalysisNanos() {
+        return getWallNanos(analyses);
+    }
+
+    /**
+     * Adds an analysis whose measurement is contained in the metrics.
+     * @param analysis The name of the analysis.
+     */
+    public void addAnalysis(String analysis) {
+        analyses.add(analysis);
+    }
+
+    /**
+     * Returns the wall time, allocated bytes and solver statistics of all stages and analyses.
+     * @return The metrics.
+     */
+    public AnalysisMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the analyses that exhausted their budget and reported only partial results.
+     * @return The names of the analyses.
+     * @see AnalysisBudget
+     */
+    public List<String> getPartialAnalyses() {
+        return Collections.unmodifiableList(partialAnalyses);
+    }
+
+    public void addPartialAnalysis(String analysis) {
+        partialAnalyses.add(analysis);
+    }
+
+    public List<Problem> getProblems() {
+        return Collections.unmodifiableList(problems);
+    }
+
+    public void addProblems(List<Problem> problems) {
+        this.problems.addAll(problems);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the wall-clock time of all analyses.
+     * @return The time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the speedup gained by running analyses concurrently.
+     * @return The sum of the times of all analyses divided by the wall-clock time of all analyses.
+     */
+    public double getSpeedup() {
+        long sequentialNanos =
+                getAnalysisNanos().values().stream().mapToLong(Long::longValue).sum();
+        return elapsedNanos == 0 ? 1 : (double) sequentialNanos / elapsedNanos;
+    }
+
+    private Map<String, Long> getWallNanos(List<String> names) {
+        Map<String, Long> wallNanos = metrics.getWallNanos();
+        Map<String, Long> selected = new LinkedHashMap<>();
+        for (String name : names) {
+            Long nanos = wallNanos.get(name);
+            if (nanos != null) {
+                selected.put(name, nanos);
+            }
+        }
+        return Collections.unmodifiableMap(selected);
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import de.featjar.base.data.Problem;
+import de.featjar.feature.model.io.uvl.UVLUtils;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignmentList;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes an {@link AnalysisReport} as JSON or CSV directly to a {@link Writer}.
+ * Features are written one by one by name, so no string of a complete result is built.
+ * Auxiliary variables (see {@link UVLUtils#isAuxiliaryVariable(String)}) are omitted.
+ * Negative literals, e.g., in atomic sets, are written as the feature name prefixed by {@code -}.
+ */
+public class AnalysisReportWriter {
+
+    /**
+     * The format of the written report.
+     */
+    public enum Format {
+        /**
+         * A single JSON object with one member per result.
+         */
+        JSON,
+        /**
+         * One row {@code section,key,value} per value, e.g., {@code core,,Root} or {@code atomic-set,2,-Feature}.
+         */
+        CSV
+    }
+
+    private final Writer writer;
+    private final Format format;
+    private VariableMap variables;
+    private boolean first;
+
+    /**
+     * Creates a new writer. The given writer should be buffered.
+     * @param writer The writer to write the report to.
+     * @param format The format of the report.
+     */
+    public AnalysisReportWriter(Writer writer, Format format) {
+        this.writer = writer;
+        this.format = format;
+    }
+
+    /**
+     * Writes the given report. Results of analyses that were not run are omitted.
+     * @param report The report.
+     * @throws IOException If the underlying writer fails.
+     */
+    public void write(AnalysisReport report) throws IOException {
+        variables = report.getVariableMap();
+        if (format == Format.JSON) {
+            writeJSON(report);
+        } else {
+            writeCSV(report);
+        }
+        writer.flush();
+    }
+
+    private void writeJSON(AnalysisReport report) throws IOException {
+        writer.write('{');
+        first = true;
+        if (report.getSatisfiable() != null) {
+            writeJSONKey("satisfiable");
+            writer.write(report.getSatisfiable().toString());
+        }
+        BooleanAssignment coreAndDead = report.getCoreAndDeadFeatures();
+        if (coreAndDead != null) {
+            writeJSONKey("core");
+            writeJSONLiterals(coreAndDead, 1);
+            writeJSONKey("dead");
+            writeJSONLiterals(coreAndDead, -1);
+        }
+        if (report.getIndeterminate() != null) {
+            writeJSONKey("indeterminate");
+            writeJSONLiterals(report.getIndeterminate(), 1);
+        }
+        if (report.getContradictingClauses() != null) {
+            writeJSONKey("contradictingClauses");
+            writeJSONLists(report.getContradictingClauses().toAssignmentList());
+        }
+        if (report.getAtomicSets() != null) {
+            writeJSONKey("atomicSets");
+            writeJSONLists(report.getAtomicSets());
+        }
+        if (report.getSolutionCount() != null) {
+            writeJSONKey("solutionCount");
+            writer.write(report.getSolutionCount().toString());
+        }
+        if (report.getSolutionCountLowerBound() != null) {
+            writeJSONKey("solutionCountLowerBound");
+            writer.write(report.getSolutionCountLowerBound().toString());
+        }
+        if (report.getSolutionsEnumerated() != null) {
+            writeJSONKey("solutionsEnumerated");
+            writer.write(report.getSolutionsEnumerated().toString());
+            writeJSONKey("solutionsComplete");
+            writer.write(Boolean.toString(report.isSolutionsComplete()));
+        }
+        writeJSONKey("partial");
+        writer.write('[');
+        for (int i = 0; i < report.getPartialAnalyses().size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeJSONString(report.getPartialAnalyses().get(i));
+        }
+        writer.write(']');
+        writeJSONKey("stageNanos");
+        writeJSONTimes(report.getStageNanos());
+        writeJSONKey("analysisNanos");
+        writeJSONTimes(report.getAnalysisNanos());
+        writeJSONKey("metrics");
+        writeJSONMetrics(report.getMetrics());
+        writeJSONKey("elapsedNanos");
+        writer.write(Long.toString(report.getElapsedNanos()));
+        writeJSONKey("parallelism");
+        writer.write(Integer.toString(report.getParallelism()));
+        writeJSONKey("problems");
+        writer.write('[');
+        boolean firstProblem = true;
+        for (Problem problem : report.getProblems()) {
+            if (!firstProblem) {
+                writer.write(',');
+            }
+            firstProblem = false;
+            writeJSONString(problem.getMessage());
+        }
+        writer.write("]}\n");
+    }
+
+    private void writeJSONKey(String key) throws IOException {
+        if (!first) {
+            writer.write(',');
+        }
+        first = false;
+        writeJSONString(key);
+        writer.write(':');
+    }
+
+    /**
+     * Writes the features of all literals with the given sign, or of all literals if the sign is {@code 0}.
+     */
+    private void writeJSONLiterals(BooleanAssignment literals, int sign) throws IOException {
+        writer.write('[');
+        boolean firstLiteral = true;
+        for (int literal : literals.get()) {
+            if ((sign == 0 || Integer.signum(literal) == sign) && !isAuxiliary(literal)) {
+                if (!firstLiteral) {
+                    writer.write(',');
+                }
+                firstLiteral = false;
+                writer.write('"');
+                if (sign == 0 && literal < 0) {
+                    writer.write('-');
+                }
+                writeEscaped(getName(literal));
+                writer.write('"');
+            }
+        }
+        writer.write(']');
+    }
+
+    private void writeJSONLists(BooleanAssignmentList lists) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < lists.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeJSONLiterals(lists.get(i).get(), 0);
+        }
+        writer.write(']');
+    }
+
+    private void writeJSONTimes(Map<String, Long> nanos) throws IOException {
+        writer.write('{');
+        boolean firstTime = true;
+        for (Map.Entry<String, Long> entry : nanos.entrySet()) {
+            if (!firstTime) {
+                writer.write(',');
+            }
+            firstTime = false;
+            writeJSONString(entry.getKey());
+            writer.write(':');
+            writer.write(entry.getValue().toString());
+        }
+        writer.write('}');
+    }
+
+    private void writeJSONMetrics(AnalysisMetrics metrics) throws IOException {
+        writer.write('{');
+        boolean firstMeasurement = true;
+        for (Map.Entry<String, Map<String, Number>> measurement :
+                metrics.getMeasurements().entrySet()) {
+            if (!firstMeasurement) {
+                writer.write(',');
+            }
+            firstMeasurement = false;
+            writeJSONString(measurement.getKey());
+            writer.write(":{");
+            boolean firstMetric = true;
+            for (Map.Entry<String, Number> metric : measurement.getValue().entrySet()) {
+                if (!firstMetric) {
+                    writer.write(',');
+                }
+                firstMetric = false;
+                writeJSONString(metric.getKey());
+                writer.write(':');
+                writer.write(metric.getValue().toString());
+            }
+            writer.write('}');
+        }
+        writer.write('}');
+    }
+
+    private void writeJSONString(String value) throws IOException {
+        writer.write('"');
+        writeEscaped(value);
+        writer.write('"');
+    }
+
+    private void writeEscaped(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+    }
+
+    private void writeCSV(AnalysisReport report) throws IOException {
+        writer.write("section,key,value\n");
+        if (report.getSatisfiable() != null) {
+            writeCSVRow("satisfiable", "", report.getSatisfiable().toString());
+        }
+        BooleanAssignment coreAndDead = report.getCoreAndDeadFeatures();
+        if (coreAndDead != null) {
+            writeCSVLiterals("core", "", coreAndDead, 1);
+            writeCSVLiterals("dead", "", coreAndDead, -1);
+        }
+        if (report.getIndeterminate() != null) {
+            writeCSVLiterals("indeterminate", "", report.getIndeterminate(), 1);
+        }
+        if (report.getContradictingClauses() != null) {
+            writeCSVLists("contradicting-clause", report.getContradictingClauses().toAssignmentList());
+        }
+        if (report.getAtomicSets() != null) {
+            writeCSVLists("atomic-set", report.getAtomicSets());
+        }
+        if (report.getSolutionCount() != null) {
+            writeCSVRow("count", "solutions", report.getSolutionCount().toString());
+        }
+        if (report.getSolutionCountLowerBound() != null) {
+            writeCSVRow("count", "solutions-lower-bound", report.getSolutionCountLowerBound().toString());
+        }
+        if (report.getSolutionsEnumerated() != null) {
+            writeCSVRow("count", "enumerated", report.getSolutionsEnumerated().toString());
+            writeCSVRow("count", "enumerated-complete", Boolean.toString(report.isSolutionsComplete()));
+        }
+        for (String analysis : report.getPartialAnalyses()) {
+            writeCSVRow("partial", analysis, "true");
+        }
+        for (Map.Entry<String, Long> entry : report.getStageNanos().entrySet()) {
+            writeCSVRow("stage-nanos", entry.getKey(), entry.getValue().toString());
+        }
+        for (Map.Entry<String, Long> entry : report.getAnalysisNanos().entrySet()) {
+            writeCSVRow("analysis-nanos", entry.getKey(), entry.getValue().toString());
+        }
+        for (Map.Entry<String, Number> entry : report.getMetrics().toMap().entrySet()) {
+            writeCSVRow("metric", entry.getKey(), entry.getValue().toString());
+        }
+        writeCSVRow("elapsed-nanos", "", Long.toString(report.getElapsedNanos()));
+        writeCSVRow("parallelism", "", Integer.toString(report.getParallelism()));
+        for (Problem problem : report.getProblems()) {
+            writeCSVRow("problem", problem.getSeverity().toString(), problem.getMessage());
+        }
+    }
+
+    private void writeCSVLiterals(String section, String key, BooleanAssignment literals, int sign)
+            throws IOException {
+        for (int literal : literals.get()) {
+            if ((sign == 0 || Integer.signum(literal) == sign) && !isAuxiliary(literal)) {
+                writer.write(section);
+                writer.write(',');
+                writer.write(key);
+                writer.write(',');
+                writeCSVValue(sign == 0 && literal < 0 ? "-" + getName(literal) : getName(literal));
+                writer.write('\n');
+            }
+        }
+    }
+
+    private void writeCSVLists(String section, BooleanAssignmentList lists) throws IOException {
+        for (int i = 0; i < lists.size(); i++) {
+            writeCSVLiterals(section, Integer.toString(i + 1), lists.get(i).get(), 0);
+        }
+    }
+
+    private void writeCSVRow(String section, String key, String value) throws IOException {
+        writer.write(section);
+        writer.write(',');
+        writeCSVValue(key);
+        writer.write(',');
+        writeCSVValue(value);
+        writer.write('\n');
+    }
+
+    private void writeCSVValue(String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private String getName(int literal) {
+        return variables.get(Math.abs(literal)).get();
+    }
+
+    private boolean isAuxiliary(int literal) {
+        return UVLUtils.isAuxiliaryVariable(getName(literal));
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import de.featjar.base.data.Problem;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.sat4j.specs.ISolver;
+
+/**
+ * Runs independent analyses concurrently and collects their results into an {@link AnalysisReport}.
+ * Analyses that are added with the same solver run one after another, and each of them starts its budget only once
+ * it holds the solver, so waiting for another analysis does not count against its budget.
+ * Results are handed to their consumers on the calling thread and in the order the analyses were added,
+ * so consumers do not need to be thread-safe.
+ * Each analysis gets its own {@link AnalysisBudget}. Budgeted analyses check it cooperatively and return partial
+ * results, which are marked in the report. Other analyses are abandoned when their budget is exhausted,
+ * such that the calling thread never waits longer than the budget (plus a short grace period).
+ */
+public class AnalysisScheduler {
+
+    /**
+     * An analysis that checks its budget cooperatively.
+     * @param <T> The type of the analysis result.
+     */
+    @FunctionalInterface
+    public interface BudgetedAnalysis<T> {
+        /**
+         * Runs the analysis.
+         * @param budget The budget of the analysis, which is already started.
+         * @return The result, which may be partial if the budget is exhausted.
+         * @throws Exception If the analysis fails.
+         */
+        T call(AnalysisBudget budget) throws Exception;
+    }
+
+    private static final long POLL_MILLIS = 50;
+    private static final long GRACE_MILLIS = 1000;
+
+    private static class Task<T> {
+        private final String name;
+        private final ISolver solver;
+        private final BudgetedAnalysis<T> analysis;
+        private final Consumer<T> resultConsumer;
+        private final boolean cooperative;
+        private final AnalysisBudget budget;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean running;
+
+        private Task(
+                String name,
+                ISolver solver,
+                BudgetedAnalysis<T> analysis,
+                boolean cooperative,
+                Consumer<T> resultConsumer,
+                AnalysisBudget budget) {
+            this.name = name;
+            this.solver = solver;
+            this.analysis = analysis;
+            this.cooperative = cooperative;
+            this.resultConsumer = resultConsumer;
+            this.budget = budget;
+        }
+
+        private T call(AnalysisMetrics metrics) throws Exception {
+            if (solver == null) {
+                return measure(metrics);
+            }
+            synchronized (solver) {
+                return measure(metrics);
+            }
+        }
+
+        private T measure(AnalysisMetrics metrics) throws Exception {
+            budget.start();
+            running = true;
+            final AnalysisMetrics.Probe probe = metrics.start(name, solver);
+            try {
+                return analysis.call(budget);
+            } finally {
+                probe.stop();
+                running = false;
+                budget.finish();
+            }
+        }
+
+        private void release(Semaphore permits) {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void accept(Object result) {
+            resultConsumer.accept((T) result);
+        }
+    }
+
+    private final int parallelism;
+    private final List<Task<?>> tasks = new ArrayList<>();
+    private final List<AnalysisBudget> runningBudgets = new ArrayList<>();
+    private long timeoutMillis;
+    private long maxAllocatedBytes;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a new scheduler.
+     * @param parallelism The maximum number of analyses that run concurrently.
+     */
+    public AnalysisScheduler(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the budget of each analysis that is added afterwards.
+     * @param timeoutMillis The maximum time of each analysis in milliseconds, or {@code 0} for no timeout.
+     * @param maxAllocatedBytes The maximum number of bytes each analysis allocates, or {@code 0} for no limit.
+     * @return This scheduler.
+     */
+    public AnalysisScheduler setBudget(long timeoutMillis, long maxAllocatedBytes) {
+        this.timeoutMillis = timeoutMillis;
+        this.maxAllocatedBytes = maxAllocatedBytes;
+        return this;
+    }
+
+    /**
+     * Adds an analysis.
+     * @param <T> The type of the analysis result.
+     * @param name The name of the analysis.
+     * @param analysis The analysis.
+     * @param resultConsumer Consumes the result of the analysis.
+     * @return This scheduler.
+     */
+    public <T> AnalysisScheduler add(String name, Callable<T> analysis, Consumer<T> resultConsumer) {
+        return add(name, null, budget -> analysis.call(), false, resultConsumer);
+    }
+
+    /**
+     * Adds an analysis that checks its budget and runs on the given solver, whose statistics are recorded for the
+     * analysis.
+     * @param <T> The type of the analysis result.
+     * @param name The name of the analysis.
+     * @param solver The solver of the analysis, or {@code null}.
+     * @param analysis The analysis.
+     * @param resultConsumer Consumes the result of the analysis.
+     * @return This scheduler.
+     */
+    public <T> AnalysisScheduler add(
+            String name, ISolver solver, BudgetedAnalysis<T> analysis, Consumer<T> resultConsumer) {
+        return add(name, solver, analysis, true, resultConsumer);
+    }
+
+    private <T> AnalysisScheduler add(
+            String name,
+            ISolver solver,
+            BudgetedAnalysis<T> analysis,
+            boolean cooperative,
+            Consumer<T> resultConsumer) {
+        tasks.add(new Task<>(
+                name,
+                solver,
+                analysis,
+                cooperative,
+                resultConsumer,
+                new AnalysisBudget(timeoutMillis, maxAllocatedBytes)));
+        return this;
+    }
+
+    /**
+     * Cancels all analyses of the current or next call of {@link #run(AnalysisReport)}.
+     * Analyses that were not started yet are skipped.
+     */
+    public void cancel() {
+        cancelled = true;
+        synchronized (runningBudgets) {
+            runningBudgets.forEach(AnalysisBudget::cancel);
+        }
+    }
+
+    /**
+     * Runs all added analyses and records their times and metrics in the given report.
+     * @param report The report.
+     * @return The problems of all failed analyses, including the reasons of partial results.
+     */
+    public List<Problem> run(AnalysisReport report) {
+        final List<Problem> problems = new ArrayList<>();
+        report.setParallelism(parallelism);
+        synchronized (runningBudgets) {
+            for (Task<?> task : tasks) {
+                runningBudgets.add(task.budget);
+                if (cancelled) {
+                    task.budget.cancel();
+                }
+            }
+        }
+        final boolean bounded = timeoutMillis != 0 || maxAllocatedBytes != 0;
+        if (!bounded && (parallelism == 1 || tasks.size() <= 1)) {
+            for (Task<?> task : tasks) {
+                if (task.budget.isExhausted()) {
+                    problems.add(getSkippedProblem(task));
+                    continue;
+                }
+                try {
+                    task.accept(task.call(report.getMetrics()));
+                    checkPartial(task, report, problems);
+                } catch (Exception e) {
+                    problems.add(new Problem(e));
+                }
+                report.addAnalysis(task.name);
+            }
+        } else {
+            // analyses run on worker threads, so the calling thread can enforce budgets of uncooperative analyses;
+            // the permits bound the number of running analyses and are returned early for abandoned ones
+            final ExecutorService executor = Executors.newCachedThreadPool();
+            final Semaphore permits = new Semaphore(parallelism);
+            try {
+                final List<Future<?>> futures = new ArrayList<>(tasks.size());
+                for (Task<?> task : tasks) {
+                    futures.add(executor.submit(() -> {
+                        permits.acquire();
+                        try {
+                            if (task.budget.isExhausted()) {
+                                throw new CancellationException(task.budget.getExhaustion());
+                            }
+                            return task.call(report.getMetrics());
+                        } finally {
+                            task.release(permits);
+                        }
+                    }));
+                }
+                for (int i = 0; i < tasks.size(); i++) {
+                    final Task<?> task = tasks.get(i);
+                    try {
+                        task.accept(await(task, futures.get(i), tasks));
+                        checkPartial(task, report, problems);
+                        report.addAnalysis(task.name);
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof CancellationException) {
+                            problems.add(getSkippedProblem(task));
+                        } else {
+                            problems.add(new Problem(
+                                    e.getCause() instanceof Exception ? (Exception) e.getCause() : e));
+                            report.addAnalysis(task.name);
+                        }
+                    } catch (TimeoutException e) {
+                        task.release(permits);
+                        problems.add(new Problem(
+                                "Abandoned analysis " + task.name + ": " + task.budget.getExhaustion(),
+                                Problem.Severity.WARNING));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        problems.add(new Problem(e));
+                        break;
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        synchronized (runningBudgets) {
+            runningBudgets.clear();
+        }
+        tasks.clear();
+        report.addProblems(problems);
+        return problems;
+    }
+
+    /**
+     * Waits for an analysis, cancelling it when its budget is exhausted and abandoning it if it does not stop
+     * within the grace period.
+     * While waiting, the budgets of all running analyses are checked, which interrupts solver calls of concurrently
+     * running analyses as soon as their budgets are exhausted.
+     */
+    private static Object await(Task<?> task, Future<?> future, List<Task<?>> tasks)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        while (true) {
+            try {
+                return future.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                for (Task<?> other : tasks) {
+                    if (other.running) {
+                        other.budget.isExhausted();
+                    }
+                }
+                if (task.budget.isExhausted()) {
+                    try {
+                        return future.get(GRACE_MILLIS, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException abandoned) {
+                        future.cancel(true);
+                        throw abandoned;
+                    }
+                }
+            }
+        }
+    }
+
+    private static Problem getSkippedProblem(Task<?> task) {
+        return new Problem(
+                "Skipped analysis " + task.name + ": " + task.budget.getExhaustion(), Problem.Severity.WARNING);
+    }
+
+    private static void checkPartial(Task<?> task, AnalysisReport report, List<Problem> problems) {
+        if (task.cooperative && task.budget.getExhaustion() != null) {
+            report.addPartialAnalysis(task.name);
+            problems.add(new Problem(
+                    "Result of " + task.name + " is partial: " + task.budget.getExhaustion(),
+                    Problem.Severity.WARNING));
+        }
+    }
+}
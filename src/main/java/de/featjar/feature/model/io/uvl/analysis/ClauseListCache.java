@@ -0,0 +1,366 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import de.featjar.base.FeatJAR;
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.io.uvl.BinaryFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.GroupEncoding;
+import de.featjar.feature.model.io.uvl.SymbolTable;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.VarInts;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignmentList;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Caches the parsed feature models and clause lists of UVL files on disk.
+ * Entries are keyed by a SHA-256 hash of the UVL text and the conversion options, so a changed file or changed
+ * options never hit a stale entry. On a hit, neither the UVL file is parsed nor the CNF is computed.
+ * Feature models are stored in the {@link BinaryFeatureModelFormat}, which does not keep feature attributes.
+ * When the cache grows beyond its maximum size, the least recently used entries are deleted.
+ */
+public class ClauseListCache {
+
+    /**
+     * The options of the conversion done by {@link ClauseListPipeline}, which are part of every key
+     * together with the {@link ConstraintEncoding}, the {@link GroupEncoding} and the
+     * {@link FeatureTreeToClauseList#VERSION version} of the conversion.
+     */
+    public static final String PIPELINE_OPTIONS = ClauseListPipeline.DIRECT;
+
+    private static final int MAGIC = 0x55564c43;
+    private static final int VERSION = 2;
+    private static final String CLAUSE_LIST_SUFFIX = ".cnf";
+    private static final String FEATURE_MODEL_SUFFIX = ".fmb";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final ConstraintEncoding constraintEncoding;
+    private final String options;
+    private int hits;
+    private int misses;
+
+    /**
+     * Creates a new cache.
+     * @param directory The directory that stores the entries, which is created if necessary.
+     * @param maxBytes The maximum total size of all entries in bytes.
+     */
+    public ClauseListCache(Path directory, long maxBytes) {
+        this(directory, maxBytes, ConstraintEncoding.DISTRIBUTIVE);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param directory The directory that stores the entries, which is created if necessary.
+     * @param maxBytes The maximum total size of all entries in bytes.
+     * @param constraintEncoding How cross-tree constraints are transformed into clauses.
+     */
+    public ClauseListCache(Path directory, long maxBytes, ConstraintEncoding constraintEncoding) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Maximum size must not be negative: " + maxBytes);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.constraintEncoding = constraintEncoding;
+        options = PIPELINE_OPTIONS + "," + constraintEncoding.name() + "," + GroupEncoding.AUTOMATIC.name() + ","
+                + FeatureTreeToClauseList.VERSION;
+    }
+
+    /**
+     * Returns the clause list of the given UVL file, either from the cache or by parsing and converting the file.
+     * @param uvlFile The UVL file.
+     * @return The clause list.
+     */
+    public Result<BooleanClauseList> getClauseList(Path uvlFile) {
+        final byte[] content;
+        try {
+            content = Files.readAllBytes(uvlFile);
+        } catch (IOException e) {
+            return Result.empty(e);
+        }
+        final String key = computeKey(content, options);
+        Result<BooleanClauseList> cached = load(key);
+        if (cached.isPresent()) {
+            synchronized (this) {
+                hits++;
+            }
+            return cached;
+        }
+        synchronized (this) {
+            misses++;
+        }
+
+        // parsing and conversion share the names of the features
+        SymbolTable symbols = new SymbolTable();
+        Result<IFeatureModel> featureModel = getFeatureModel(uvlFile, key, symbols);
+        if (featureModel.isEmpty()) {
+            return Result.empty(featureModel.getProblems());
+        }
+        BooleanClauseList clauseList =
+                new ClauseListPipeline(featureModel.get(), constraintEncoding, symbols).getClauseList();
+        try {
+            store(key, clauseList);
+        } catch (IOException e) {
+            FeatJAR.log().warning("Could not cache clause list of " + uvlFile + ": " + e.getMessage());
+        }
+        return Result.of(clauseList);
+    }
+
+    /**
+     * Returns the feature model of the given UVL file, either from the cache or by parsing the file.
+     * @param uvlFile The UVL file.
+     * @return The feature model.
+     */
+    public Result<IFeatureModel> getFeatureModel(Path uvlFile) {
+        try {
+            return getFeatureModel(uvlFile, computeKey(Files.readAllBytes(uvlFile), options), new SymbolTable());
+        } catch (IOException e) {
+            return Result.empty(e);
+        }
+    }
+
+    private Result<IFeatureModel> getFeatureModel(Path uvlFile, String key, SymbolTable symbols) {
+        Path file = directory.resolve(key + FEATURE_MODEL_SUFFIX);
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                Result<IFeatureModel> cached = new BinaryFeatureModelFormat().parse(in);
+                if (cached.isPresent()) {
+                    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                    return cached;
+                }
+            } catch (IOException e) {
+                FeatJAR.log().warning("Could not read cached feature model of " + uvlFile + ": " + e.getMessage());
+            }
+        }
+
+        Result<IFeatureModel> featureModel = new UVLFeatureModelFormat().parse(uvlFile, StandardCharsets.UTF_8, symbols);
+        if (featureModel.isPresent()) {
+            try {
+                Files.createDirectories(directory);
+                Path temporaryFile = Files.createTempFile(directory, key, ".tmp");
+                try {
+                    List<Problem> problems;
+                    try (OutputStream out = Files.newOutputStream(temporaryFile)) {
+                        problems = new BinaryFeatureModelFormat().write(featureModel.get(), out);
+                    }
+                    // a model that cannot be stored completely is not cached, so a hit never loses information
+                    if (problems.isEmpty()) {
+                        Files.move(temporaryFile, file,
+                                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                } finally {
+                    Files.deleteIfExists(temporaryFile);
+                }
+                evict();
+            } catch (IOException e) {
+                FeatJAR.log().warning("Could not cache feature model of " + uvlFile + ": " + e.getMessage());
+            }
+        }
+        return featureModel;
+    }
+
+    /**
+     * Loads a cached clause list.
+     * @param key The key of the entry.
+     * @return The clause list, or an empty result if there is no valid entry for the key.
+     */
+    public Result<BooleanClauseList> load(String key) {
+        Path file = directory.resolve(key + CLAUSE_LIST_SUFFIX);
+        if (!Files.isRegularFile(file)) {
+            return Result.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return Result.empty();
+            }
+            BooleanClauseList clauseList = readClauseList(in);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return Result.of(clauseList);
+        } catch (IOException e) {
+            return Result.empty(e);
+        }
+    }
+
+    /**
+     * Stores a clause list and evicts least recently used entries if the cache is too large.
+     * The entry is written to a temporary file first, so concurrent readers never see a partial entry.
+     * @param key The key of the entry.
+     * @param clauseList The clause list.
+     * @throws IOException If the entry cannot be written.
+     */
+    public void store(String key, BooleanClauseList clauseList) throws IOException {
+        Files.createDirectories(directory);
+        Path temporaryFile = Files.createTempFile(directory, key, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeClauseList(out, clauseList);
+            }
+            Files.move(
+                    temporaryFile,
+                    directory.resolve(key + CLAUSE_LIST_SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        evict();
+    }
+
+    /**
+     * Deletes least recently used entries until the total size of all entries is at most the maximum size.
+     * @throws IOException If the cache directory cannot be listed.
+     */
+    public synchronized void evict() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(directory)) {
+            entries = files.filter(file -> file.getFileName().toString().endsWith(CLAUSE_LIST_SUFFIX)
+                            || file.getFileName().toString().endsWith(FEATURE_MODEL_SUFFIX))
+                    .collect(Collectors.toList());
+        }
+        long totalBytes = 0;
+        List<long[]> sizesAndTimes = new ArrayList<>(entries.size());
+        for (Path entry : entries) {
+            long size = Files.size(entry);
+            totalBytes += size;
+            sizesAndTimes.add(
+                    new long[] {size, Files.getLastModifiedTime(entry).toMillis()});
+        }
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+        List<Integer> order = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingLong(i -> sizesAndTimes.get(i)[1]));
+        for (int i : order) {
+            if (totalBytes <= maxBytes) {
+                break;
+            }
+            if (Files.deleteIfExists(entries.get(i))) {
+                totalBytes -= sizesAndTimes.get(i)[0];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of requests that were answered from the cache.
+     * @return The number of hits.
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of requests that required parsing and conversion.
+     * @return The number of misses.
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Computes the key of an entry.
+     * @param content The UVL text.
+     * @param options The conversion options.
+     * @return A hexadecimal SHA-256 hash of the text and the options.
+     */
+    public static String computeKey(byte[] content, String options) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content);
+            digest.update((byte) 0);
+            digest.update(options.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeClauseList(DataOutputStream out, BooleanClauseList clauseList) throws IOException {
+        VariableMap variableMap = clauseList.getVariableMap();
+        int variableCount = variableMap.getVariableCount();
+        VarInts.write(out, variableCount);
+        for (int i = 1; i <= variableCount; i++) {
+            out.writeUTF(variableMap.get(i).get());
+        }
+        BooleanAssignmentList clauses = clauseList.toAssignmentList();
+        VarInts.write(out, clauses.size());
+        for (int i = 0; i < clauses.size(); i++) {
+            BooleanAssignment clause = clauses.get(i).get();
+            VarInts.write(out, clause.size());
+            for (int j = 0; j < clause.size(); j++) {
+                VarInts.writeSigned(out, clause.get(j));
+            }
+        }
+    }
+
+    private static BooleanClauseList readClauseList(DataInputStream in) throws IOException {
+        int variableCount = VarInts.read(in);
+        List<String> names = new ArrayList<>(variableCount);
+        for (int i = 0; i < variableCount; i++) {
+            names.add(in.readUTF());
+        }
+        BooleanClauseList clauseList = new BooleanClauseList(new VariableMap(names));
+        int clauseCount = VarInts.read(in);
+        for (int i = 0; i < clauseCount; i++) {
+            int[] literals = new int[VarInts.read(in)];
+            for (int j = 0; j < literals.length; j++) {
+                literals[j] = VarInts.readSigned(in);
+            }
+            clauseList.add(new BooleanClause(literals));
+        }
+        return clauseList;
+    }
+}
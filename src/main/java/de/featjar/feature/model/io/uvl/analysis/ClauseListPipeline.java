@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import de.featjar.base.computation.Computations;
+import de.featjar.base.computation.IComputation;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.io.uvl.SymbolTable;
+import de.featjar.feature.model.transformer.ComputeFormula;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.assignment.ComputeBooleanClauseList;
+import de.featjar.formula.computation.ComputeCNFFormula;
+import de.featjar.formula.computation.ComputeNNFFormula;
+import de.featjar.formula.structure.IFormula;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Converts a feature model into a {@link BooleanClauseList} exactly once.
+ * Each stage of the pipeline ({@link ComputeFormula}, {@link ComputeNNFFormula}, {@link ComputeCNFFormula},
+ * {@link ComputeBooleanClauseList}) is computed eagerly and its result is memoized, such that analyses that depend on
+ * the clause list never trigger a recomputation of earlier stages.
+ * Alternatively, the clause list is computed directly from the feature tree by {@link FeatureTreeToClauseList},
+ * which transforms only the cross-tree constraints into CNF according to a {@link ConstraintEncoding}.
+ * The wall time and allocated bytes of each stage are measured by {@link AnalysisMetrics}.
+ */
+public class ClauseListPipeline {
+
+    public static final String FORMULA = "formula";
+    public static final String NNF = "nnf";
+    public static final String CNF = "cnf";
+    public static final String CLAUSE_LIST = "clause-list";
+    public static final String DIRECT = "direct";
+
+    private final IFeatureModel featureModel;
+    private final boolean direct;
+    private final ConstraintEncoding constraintEncoding;
+    private final SymbolTable symbols;
+    private final AnalysisMetrics metrics = new AnalysisMetrics();
+    private BooleanClauseList clauseList;
+
+    public ClauseListPipeline(IFeatureModel featureModel) {
+        this(featureModel, false);
+    }
+
+    /**
+     * Creates a new pipeline.
+     * @param featureModel The feature model.
+     * @param direct Whether the feature tree is converted into clauses directly, skipping the NNF and CNF stages
+     * for everything but the cross-tree constraints.
+     */
+    public ClauseListPipeline(IFeatureModel featureModel, boolean direct) {
+        this.featureModel = featureModel;
+        this.direct = direct;
+        constraintEncoding = ConstraintEncoding.DISTRIBUTIVE;
+        symbols = null;
+    }
+
+    /**
+     * Creates a new pipeline that converts the feature tree into clauses directly.
+     * @param featureModel The feature model.
+     * @param constraintEncoding How cross-tree constraints are transformed into clauses.
+     */
+    public ClauseListPipeline(IFeatureModel featureModel, ConstraintEncoding constraintEncoding) {
+        this(featureModel, constraintEncoding, null);
+    }
+
+    /**
+     * Creates a new pipeline that converts the feature tree into clauses directly.
+     * @param featureModel The feature model.
+     * @param constraintEncoding How cross-tree constraints are transformed into clauses.
+     * @param symbols The symbol table that was used to parse the feature model, or {@code null}.
+     */
+    public ClauseListPipeline(IFeatureModel featureModel, ConstraintEncoding constraintEncoding, SymbolTable symbols) {
+        this.featureModel = featureModel;
+        this.direct = true;
+        this.constraintEncoding = constraintEncoding;
+        this.symbols = symbols;
+    }
+
+    /**
+     * Returns the clause list of the feature model, computing it on the first call.
+     * @return The clause list.
+     */
+    public synchronized BooleanClauseList getClauseList() {
+        if (clauseList == null && direct) {
+            clauseList = stage(DIRECT, () -> new FeatureTreeToClauseList(constraintEncoding, symbols)
+                    .convert(featureModel)
+                    .orElseThrow());
+        } else if (clauseList == null) {
+            IFormula formula = stage(FORMULA, () -> Computations.of(featureModel)
+                    .map(ComputeFormula::new)
+                    .compute());
+            IFormula nnf = stage(NNF, () -> Computations.of(formula)
+                    .map(ComputeNNFFormula::new)
+                    .compute());
+            IFormula cnf = stage(CNF, () -> Computations.of(nnf)
+                    .map(ComputeCNFFormula::new)
+                    .compute());
+            clauseList = stage(CLAUSE_LIST, () -> Computations.of(cnf)
+                    .map(ComputeBooleanClauseList::new)
+                    .compute());
+        }
+        return clauseList;
+    }
+
+    /**
+     * Returns the memoized clause list as a computation, which can be used as input for analyses.
+     * @return A computation that always returns the same clause list.
+     */
+    public IComputation<BooleanClauseList> getClauseListComputation() {
+        return Computations.of(getClauseList());
+    }
+
+    /**
+     * Returns the time of each stage that has been computed.
+     * @return A map from stage name to time in nanoseconds, in the order of the pipeline.
+     */
+    public Map<String, Long> getStageNanos() {
+        return metrics.getWallNanos();
+    }
+
+    /**
+     * Returns the measurements of each stage that has been computed.
+     * @return The metrics.
+     */
+    public AnalysisMetrics getMetrics() {
+        return metrics;
+    }
+
+    private <T> T stage(String name, Supplier<T> computation) {
+        final AnalysisMetrics.Probe probe = metrics.start(name, null);
+        final T result = computation.get();
+        probe.stop();
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+/**
+ * Determines how cross-tree constraints are transformed into clauses.
+ */
+public enum ConstraintEncoding {
+    /**
+     * Distributes disjunctions over conjunctions. Introduces no variables, but the number of clauses can grow
+     * exponentially with nested equivalences.
+     */
+    DISTRIBUTIVE,
+    /**
+     * Introduces an auxiliary variable for every complex subformula, which is defined to be equivalent to it.
+     * The number of clauses grows linearly and, as every auxiliary variable is determined by the features,
+     * the number of solutions is preserved.
+     * Auxiliary variables can be recognized by {@link de.featjar.feature.model.io.uvl.UVLUtils#isAuxiliaryVariable(String)}.
+     */
+    TSEITIN
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import de.featjar.formula.assignment.BooleanSolution;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A smooth formula in deterministic decomposable negation normal form (d-DNNF), as created by {@link DDNNFCompiler}.
+ * Every node ranges over a fixed set of variables: the children of an and-node range over disjoint sets,
+ * and both branches of a decision node range over the same set.
+ * Variables that are unconstrained in a branch are represented explicitly by free-variable nodes.
+ * Hence, model counting, conditional model counting and uniform sampling are single passes over the nodes.
+ * Nodes are stored in topological order, that is, every node is stored after its children.
+ */
+public class DDNNF {
+
+    static final byte FALSE = 0;
+    static final byte TRUE = 1;
+    static final byte LITERAL = 2;
+    static final byte FREE = 3;
+    static final byte AND = 4;
+    static final byte DECISION = 5;
+
+    static final int FALSE_NODE = 0;
+    static final int TRUE_NODE = 1;
+
+    private final int variableCount;
+    private byte[] types = new byte[1024];
+    private int[] literals = new int[1024];
+    private int[] highs = new int[1024];
+    private int[] lows = new int[1024];
+    private int[][] children = new int[1024][];
+    private int size;
+    private int root = FALSE_NODE;
+    private BigInteger count;
+
+    DDNNF(int variableCount) {
+        this.variableCount = variableCount;
+        addNode(FALSE, 0, 0, 0, null);
+        addNode(TRUE, 0, 0, 0, null);
+    }
+
+    int addLiteral(int literal) {
+        return addNode(LITERAL, literal, 0, 0, null);
+    }
+
+    int addFree(int variable) {
+        return addNode(FREE, variable, 0, 0, null);
+    }
+
+    int addAnd(int[] nodes, int length) {
+        int remaining = 0;
+        for (int i = 0; i < length; i++) {
+            if (types[nodes[i]] == FALSE) {
+                return FALSE_NODE;
+            } else if (types[nodes[i]] != TRUE) {
+                nodes[remaining++] = nodes[i];
+            }
+        }
+        if (remaining == 0) {
+            return TRUE_NODE;
+        } else if (remaining == 1) {
+            return nodes[0];
+        }
+        return addNode(AND, 0, 0, 0, Arrays.copyOf(nodes, remaining));
+    }
+
+    int addDecision(int variable, int high, int low) {
+        if (high == FALSE_NODE && low == FALSE_NODE) {
+            return FALSE_NODE;
+        }
+        return addNode(DECISION, variable, high, low, null);
+    }
+
+    void setRoot(int root) {
+        this.root = root;
+        types = Arrays.copyOf(types, size);
+        literals = Arrays.copyOf(literals, size);
+        highs = Arrays.copyOf(highs, size);
+        lows = Arrays.copyOf(lows, size);
+        children = Arrays.copyOf(children, size);
+    }
+
+    private int addNode(byte type, int literal, int high, int low, int[] nodeChildren) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            literals = Arrays.copyOf(literals, capacity);
+            highs = Arrays.copyOf(highs, capacity);
+            lows = Arrays.copyOf(lows, capacity);
+            children = Arrays.copyOf(children, capacity);
+        }
+        types[size] = type;
+        literals[size] = literal;
+        highs[size] = high;
+        lows[size] = low;
+        children[size] = nodeChildren;
+        return size++;
+    }
+
+    /**
+     * Returns the number of variables this formula ranges over.
+     * @return The number of variables.
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * Returns the number of nodes of this formula.
+     * @return The number of nodes.
+     */
+    public int getNodeCount() {
+        return size;
+    }
+
+    /**
+     * Returns the number of models of this formula.
+     * @return The number of models.
+     */
+    public synchronized BigInteger count() {
+        if (count == null) {
+            count = computeCounts(new int[variableCount + 1])[root];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of models of this formula that satisfy all given literals.
+     * @param assumptions The literals.
+     * @return The number of models that satisfy all assumptions.
+     */
+    public BigInteger count(int... assumptions) {
+        int[] fixed = toFixed(assumptions);
+        return fixed == null ? BigInteger.ZERO : computeCounts(fixed)[root];
+    }
+
+    /**
+     * Draws solutions uniformly at random from all models of this formula that satisfy all given literals.
+     * @param random The source of randomness.
+     * @param sampleCount The number of solutions to draw, with replacement.
+     * @param assumptions The literals.
+     * @return The drawn solutions, each containing one literal per variable,
+     * or an empty list if no model satisfies the assumptions.
+     */
+    public List<BooleanSolution> sample(Random random, int sampleCount, int... assumptions) {
+        List<BooleanSolution> samples = new ArrayList<>(sampleCount);
+        int[] fixed = toFixed(assumptions);
+        if (fixed == null) {
+            return samples;
+        }
+        BigInteger[] counts = computeCounts(fixed);
+        if (counts[root].signum() == 0) {
+            return samples;
+        }
+        int[] stack = new int[size];
+        for (int i = 0; i < sampleCount; i++) {
+            int[] model = new int[variableCount];
+            int stackSize = 0;
+            stack[stackSize++] = root;
+            while (stackSize > 0) {
+                int node = stack[--stackSize];
+                switch (types[node]) {
+                    case LITERAL:
+                        model[Math.abs(literals[node]) - 1] = literals[node];
+                        break;
+                    case FREE:
+                        int variable = literals[node];
+                        int value = fixed[variable] != 0 ? fixed[variable] : random.nextBoolean() ? 1 : -1;
+                        model[variable - 1] = value * variable;
+                        break;
+                    case AND:
+                        for (int child : children[node]) {
+                            stack[stackSize++] = child;
+                        }
+                        break;
+                    case DECISION:
+                        int decisionVariable = literals[node];
+                        BigInteger highCount = fixed[decisionVariable] >= 0 ? counts[highs[node]] : BigInteger.ZERO;
+                        BigInteger lowCount = fixed[decisionVariable] <= 0 ? counts[lows[node]] : BigInteger.ZERO;
+                        if (randomBelow(random, highCount.add(lowCount)).compareTo(highCount) < 0) {
+                            model[decisionVariable - 1] = decisionVariable;
+                            stack[stackSize++] = highs[node];
+                        } else {
+                            model[decisionVariable - 1] = -decisionVariable;
+                            stack[stackSize++] = lows[node];
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            samples.add(new BooleanSolution(model));
+        }
+        return samples;
+    }
+
+    private int[] toFixed(int... assumptions) {
+        int[] fixed = new int[variableCount + 1];
+        for (int literal : assumptions) {
+            int variable = Math.abs(literal);
+            if (variable == 0 || variable > variableCount) {
+                throw new IllegalArgumentException("Unknown variable: " + literal);
+            }
+            int value = literal > 0 ? 1 : -1;
+            if (fixed[variable] == -value) {
+                return null;
+            }
+            fixed[variable] = value;
+        }
+        return fixed;
+    }
+
+    private BigInteger[] computeCounts(int[] fixed) {
+        BigInteger two = BigInteger.valueOf(2);
+        BigInteger[] counts = new BigInteger[size];
+        for (int node = 0; node < size; node++) {
+            switch (types[node]) {
+                case FALSE:
+                    counts[node] = BigInteger.ZERO;
+                    break;
+                case TRUE:
+                    counts[node] = BigInteger.ONE;
+                    break;
+                case LITERAL:
+                    int literal = literals[node];
+                    counts[node] = fixed[Math.abs(literal)] * literal < 0 ? BigInteger.ZERO : BigInteger.ONE;
+                    break;
+                case FREE:
+                    counts[node] = fixed[literals[node]] == 0 ? two : BigInteger.ONE;
+                    break;
+                case AND:
+                    BigInteger product = BigInteger.ONE;
+                    for (int child : children[node]) {
+                        product = product.multiply(counts[child]);
+                        if (product.signum() == 0) {
+                            break;
+                        }
+                    }
+                    counts[node] = product;
+                    break;
+                case DECISION:
+                    int variable = literals[node];
+                    BigInteger sum = BigInteger.ZERO;
+                    if (fixed[variable] >= 0) {
+                        sum = sum.add(counts[highs[node]]);
+                    }
+                    if (fixed[variable] <= 0) {
+                        sum = sum.add(counts[lows[node]]);
+                    }
+                    counts[node] = sum;
+                    break;
+                default:
+                    throw new IllegalStateException(String.valueOf(types[node]));
+            }
+        }
+        return counts;
+    }
+
+    private static BigInteger randomBelow(Random random, BigInteger bound) {
+        BigInteger value;
+        do {
+            value = new BigInteger(bound.bitLength(), random);
+        } while (value.compareTo(bound) >= 0);
+        return value;
+    }
+}
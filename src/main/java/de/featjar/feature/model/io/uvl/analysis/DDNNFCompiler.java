@@ -0,0 +1,471 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import de.featjar.base.data.Result;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignmentList;
+import de.featjar.formula.assignment.BooleanClauseList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a clause list into a {@link DDNNF} by exhaustive DPLL search.
+ * After each decision, unit propagation is applied and the remaining clauses are split into independent
+ * components, which are compiled separately and combined by an and-node.
+ * Compiled components are cached by their variables and remaining clauses, so equal sub-problems that are reached
+ * by different decisions are compiled only once.
+ * Compilation is recursive in the number of nested decisions and therefore runs on its own thread with a large stack.
+ */
+public class DDNNFCompiler {
+
+    private static final long STACK_SIZE = 512L * 1024 * 1024;
+    private static final int BUDGET_CHECK_INTERVAL = 1024;
+
+    private static class ComponentKey {
+        private final int[] key;
+        private final int hashCode;
+
+        private ComponentKey(int[] variables, int[] clauseIds) {
+            key = new int[variables.length + clauseIds.length + 1];
+            key[0] = variables.length;
+            System.arraycopy(variables, 0, key, 1, variables.length);
+            System.arraycopy(clauseIds, 0, key, variables.length + 1, clauseIds.length);
+            hashCode = Arrays.hashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ComponentKey && Arrays.equals(key, ((ComponentKey) other).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private final int variableCount;
+    private final int[][] clauses;
+    private final int[][] occurrences;
+    private final int[] values;
+    private final int[] trail;
+    private final int[] parents;
+    private final int[] groups;
+    private final int[] scores;
+    private final Map<ComponentKey, Integer> cache = new HashMap<>();
+    private int trailSize;
+    private DDNNF ddnnf;
+    private AnalysisBudget budget;
+    private int componentCount;
+
+    /**
+     * Creates a new compiler for the given clause list, ranging over all variables of its variable map.
+     * @param clauseList The clause list.
+     */
+    public DDNNFCompiler(BooleanClauseList clauseList) {
+        this(clauseList, clauseList.getVariableMap().getVariableCount());
+    }
+
+    /**
+     * Creates a new compiler for the given clause list.
+     * @param clauseList The clause list.
+     * @param variableCount The number of variables, which is increased if a clause contains a larger variable.
+     * Variables that occur in no clause are counted as unconstrained.
+     */
+    public DDNNFCompiler(BooleanClauseList clauseList, int variableCount) {
+        BooleanAssignmentList clauseAssignments = clauseList.toAssignmentList();
+        List<int[]> clauseLiterals = new ArrayList<>(clauseAssignments.size());
+        int maxVariable = variableCount;
+        for (int i = 0; i < clauseAssignments.size(); i++) {
+            BooleanAssignment clause = clauseAssignments.get(i).get();
+            int[] literals = new int[clause.size()];
+            for (int j = 0; j < literals.length; j++) {
+                literals[j] = clause.get(j);
+                maxVariable = Math.max(maxVariable, Math.abs(literals[j]));
+            }
+            int[] normalized = normalize(literals);
+            if (normalized != null) {
+                clauseLiterals.add(normalized);
+            }
+        }
+        this.variableCount = maxVariable;
+        clauses = clauseLiterals.toArray(new int[0][]);
+
+        int[] occurrenceCounts = new int[2 * maxVariable + 2];
+        for (int[] clause : clauses) {
+            for (int literal : clause) {
+                occurrenceCounts[index(literal)]++;
+            }
+        }
+        occurrences = new int[occurrenceCounts.length][];
+        for (int i = 0; i < occurrences.length; i++) {
+            occurrences[i] = new int[occurrenceCounts[i]];
+            occurrenceCounts[i] = 0;
+        }
+        for (int c = 0; c < clauses.length; c++) {
+            for (int literal : clauses[c]) {
+                int index = index(literal);
+                occurrences[index][occurrenceCounts[index]++] = c;
+            }
+        }
+
+        values = new int[maxVariable + 1];
+        trail = new int[maxVariable];
+        parents = new int[maxVariable + 1];
+        groups = new int[maxVariable + 1];
+        scores = new int[maxVariable + 1];
+    }
+
+    /**
+     * Compiles the clause list.
+     * @return The compiled formula, or an empty result if compilation was interrupted or ran out of memory.
+     */
+    public Result<DDNNF> compile() {
+        return compile(AnalysisBudget.unlimited());
+    }
+
+    /**
+     * Compiles the clause list within the given budget.
+     * The budget is checked periodically during compilation, and allocations of the compiling thread are counted.
+     * As a partial d-DNNF cannot be counted, an exhausted budget yields an empty result.
+     * @param budget The budget.
+     * @return The compiled formula, or an empty result if compilation was interrupted, ran out of memory or
+     * exhausted the budget.
+     */
+    public Result<DDNNF> compile(AnalysisBudget budget) {
+        this.budget = budget;
+        componentCount = 0;
+        final Result<?>[] result = new Result<?>[1];
+        Thread thread = new Thread(
+                null,
+                () -> {
+                    try {
+                        budget.track();
+                        result[0] = Result.of(compileFormula());
+                    } catch (RuntimeException e) {
+                        result[0] = Result.empty(e);
+                    } catch (StackOverflowError | OutOfMemoryError e) {
+                        result[0] = Result.empty(new IllegalStateException("Could not compile d-DNNF", e));
+                    }
+                },
+                "ddnnf-compiler",
+                STACK_SIZE);
+        budget.onCancel(thread::interrupt);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
+            return Result.empty(e);
+        }
+        @SuppressWarnings("unchecked")
+        Result<DDNNF> compiled = (Result<DDNNF>) result[0];
+        return compiled;
+    }
+
+    private DDNNF compileFormula() {
+        ddnnf = new DDNNF(variableCount);
+        cache.clear();
+        Arrays.fill(values, 0);
+        trailSize = 0;
+
+        boolean consistent = true;
+        for (int[] clause : clauses) {
+            if (clause.length == 0 || (clause.length == 1 && !propagate(clause[0]))) {
+                consistent = false;
+                break;
+            }
+        }
+        if (consistent) {
+            int[] variables = new int[variableCount];
+            for (int v = 0; v < variableCount; v++) {
+                variables[v] = v + 1;
+            }
+            int[] clauseIds = new int[clauses.length];
+            for (int c = 0; c < clauses.length; c++) {
+                clauseIds[c] = c;
+            }
+            ddnnf.setRoot(compileResidual(variables, clauseIds, 0));
+        } else {
+            ddnnf.setRoot(DDNNF.FALSE_NODE);
+        }
+        cache.clear();
+        DDNNF compiled = ddnnf;
+        ddnnf = null;
+        return compiled;
+    }
+
+    private int compileComponent(int[] variables, int[] clauseIds) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new IllegalStateException(
+                    budget.getExhaustion() != null ? budget.getExhaustion() : "Compilation interrupted");
+        }
+        if (++componentCount % BUDGET_CHECK_INTERVAL == 0 && budget.isExhausted()) {
+            throw new IllegalStateException(budget.getExhaustion());
+        }
+        ComponentKey key = new ComponentKey(variables, clauseIds);
+        Integer cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        // decide on the variable with most occurrences in the remaining clauses
+        for (int c : clauseIds) {
+            for (int literal : clauses[c]) {
+                if (values[Math.abs(literal)] == 0) {
+                    scores[Math.abs(literal)]++;
+                }
+            }
+        }
+        int decision = variables[0];
+        for (int variable : variables) {
+            if (scores[variable] > scores[decision]) {
+                decision = variable;
+            }
+        }
+        for (int variable : variables) {
+            scores[variable] = 0;
+        }
+
+        int start = trailSize;
+        int high = propagate(decision) ? compileResidual(variables, clauseIds, decision) : DDNNF.FALSE_NODE;
+        undo(start);
+        int low = propagate(-decision) ? compileResidual(variables, clauseIds, decision) : DDNNF.FALSE_NODE;
+        undo(start);
+
+        int node = ddnnf.addDecision(decision, high, low);
+        cache.put(key, node);
+        return node;
+    }
+
+    /**
+     * Compiles the remaining clauses after unit propagation into an and-node over implied literals,
+     * free variables and independent components.
+     */
+    private int compileResidual(int[] variables, int[] clauseIds, int decision) {
+        int[] nodes = new int[variables.length];
+        int nodeCount = 0;
+        for (int variable : variables) {
+            if (variable == decision) {
+                continue;
+            }
+            if (values[variable] != 0) {
+                nodes[nodeCount++] = ddnnf.addLiteral(values[variable] * variable);
+            } else {
+                parents[variable] = variable;
+                groups[variable] = -1;
+            }
+        }
+
+        int activeCount = 0;
+        int[] activeClauseIds = new int[clauseIds.length];
+        for (int c : clauseIds) {
+            if (isSatisfied(clauses[c])) {
+                continue;
+            }
+            activeClauseIds[activeCount++] = c;
+            int first = 0;
+            for (int literal : clauses[c]) {
+                int variable = Math.abs(literal);
+                if (values[variable] == 0) {
+                    if (first == 0) {
+                        first = variable;
+                    } else {
+                        union(first, variable);
+                    }
+                    groups[variable] = 0;
+                }
+            }
+        }
+
+        // variables in no remaining clause are free, all others are grouped by their connected component
+        int groupCount = 0;
+        int[] groupSizes = new int[variables.length + 1];
+        for (int variable : variables) {
+            if (variable == decision || values[variable] != 0) {
+                continue;
+            }
+            if (groups[variable] < 0) {
+                nodes[nodeCount++] = ddnnf.addFree(variable);
+            } else {
+                int root = find(variable);
+                if (groups[root] == 0) {
+                    groups[root] = ++groupCount;
+                }
+                groupSizes[groups[root]]++;
+            }
+        }
+        if (groupCount > 0) {
+            int[][] groupVariables = new int[groupCount + 1][];
+            int[] groupClauseCounts = new int[groupCount + 1];
+            for (int g = 1; g <= groupCount; g++) {
+                groupVariables[g] = new int[groupSizes[g]];
+                groupSizes[g] = 0;
+            }
+            for (int variable : variables) {
+                if (variable != decision && values[variable] == 0 && groups[variable] >= 0) {
+                    int g = groups[find(variable)];
+                    groupVariables[g][groupSizes[g]++] = variable;
+                }
+            }
+            int[] clauseGroups = new int[activeCount];
+            for (int i = 0; i < activeCount; i++) {
+                clauseGroups[i] = groups[find(firstUnassigned(clauses[activeClauseIds[i]]))];
+                groupClauseCounts[clauseGroups[i]]++;
+            }
+            int[][] groupClauseIds = new int[groupCount + 1][];
+            for (int g = 1; g <= groupCount; g++) {
+                groupClauseIds[g] = new int[groupClauseCounts[g]];
+                groupClauseCounts[g] = 0;
+            }
+            for (int i = 0; i < activeCount; i++) {
+                int g = clauseGroups[i];
+                groupClauseIds[g][groupClauseCounts[g]++] = activeClauseIds[i];
+            }
+            for (int g = 1; g <= groupCount; g++) {
+                int node = compileComponent(groupVariables[g], groupClauseIds[g]);
+                if (node == DDNNF.FALSE_NODE) {
+                    return DDNNF.FALSE_NODE;
+                }
+                nodes[nodeCount++] = node;
+            }
+        }
+        return ddnnf.addAnd(nodes, nodeCount);
+    }
+
+    private boolean propagate(int literal) {
+        int start = trailSize;
+        if (!assign(literal)) {
+            return false;
+        }
+        for (int i = start; i < trailSize; i++) {
+            int variable = trail[i];
+            int falseLiteral = values[variable] > 0 ? -variable : variable;
+            for (int c : occurrences[index(falseLiteral)]) {
+                int unassignedCount = 0;
+                int unassigned = 0;
+                boolean satisfied = false;
+                for (int other : clauses[c]) {
+                    int value = value(other);
+                    if (value > 0) {
+                        satisfied = true;
+                        break;
+                    } else if (value == 0) {
+                        unassignedCount++;
+                        unassigned = other;
+                    }
+                }
+                if (!satisfied) {
+                    if (unassignedCount == 0) {
+                        return false;
+                    } else if (unassignedCount == 1) {
+                        assign(unassigned);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean assign(int literal) {
+        int variable = Math.abs(literal);
+        int value = literal > 0 ? 1 : -1;
+        if (values[variable] != 0) {
+            return values[variable] == value;
+        }
+        values[variable] = value;
+        trail[trailSize++] = variable;
+        return true;
+    }
+
+    private void undo(int start) {
+        while (trailSize > start) {
+            values[trail[--trailSize]] = 0;
+        }
+    }
+
+    private int value(int literal) {
+        return literal > 0 ? values[literal] : -values[-literal];
+    }
+
+    private boolean isSatisfied(int[] clause) {
+        for (int literal : clause) {
+            if (value(literal) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int firstUnassigned(int[] clause) {
+        for (int literal : clause) {
+            if (values[Math.abs(literal)] == 0) {
+                return Math.abs(literal);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private int find(int variable) {
+        while (parents[variable] != variable) {
+            parents[variable] = parents[parents[variable]];
+            variable = parents[variable];
+        }
+        return variable;
+    }
+
+    private void union(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        if (firstRoot != secondRoot) {
+            parents[secondRoot] = firstRoot;
+        }
+    }
+
+    private static int index(int literal) {
+        return literal > 0 ? 2 * literal : -2 * literal + 1;
+    }
+
+    /**
+     * Removes duplicate literals from a clause.
+     * @return The normalized clause, or {@code null} if the clause is a tautology.
+     */
+    private static int[] normalize(int[] literals) {
+        int[] sorted = literals.clone();
+        Arrays.sort(sorted);
+        int length = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (length > 0 && sorted[length - 1] == sorted[i]) {
+                continue;
+            }
+            if (Arrays.binarySearch(sorted, -sorted[i]) >= 0) {
+                return null;
+            }
+            sorted[length++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, length);
+    }
+}
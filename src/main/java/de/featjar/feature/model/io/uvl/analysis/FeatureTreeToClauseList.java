@@ -0,0 +1,478 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import de.featjar.base.computation.Computations;
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.feature.model.FeatureTree;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.io.uvl.GroupEncoding;
+import de.featjar.feature.model.io.uvl.SymbolTable;
+import de.featjar.feature.model.io.uvl.UVLUtils;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignmentList;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.assignment.ComputeBooleanClauseList;
+import de.featjar.formula.computation.ComputeCNFFormula;
+import de.featjar.formula.computation.ComputeNNFFormula;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Converts a feature model directly into a {@link BooleanClauseList}.
+ * The feature tree is translated into clauses without building an intermediate formula:
+ * every child implies its parent, mandatory children are implied by their parent,
+ * and or, alternative and cardinality groups constrain their children if their parent is selected.
+ * Alternative and cardinality groups are encoded as chosen by a {@link GroupEncoding}, using the same auxiliary
+ * variables as {@link UVLUtils#alternative(IFormula[], GroupEncoding, String)} and
+ * {@link UVLUtils#between(IFormula[], int, int, GroupEncoding, String)}, which are fully defined by the children.
+ * Only the cross-tree constraints are converted, either by the generic NNF and CNF transformations
+ * or by a {@link TseitinEncoder}, and their clauses are mapped into the same {@link VariableMap}.
+ * Variables are numbered by a {@link SymbolTable}, which can be shared with the parser of the feature model.
+ */
+public class FeatureTreeToClauseList {
+
+    /**
+     * The version of this conversion, which is increased whenever the same feature model yields different clauses,
+     * e.g., after a change of an encoding or of the names of auxiliary variables.
+     */
+    public static final int VERSION = 2;
+
+    private static final String TSEITIN_AUXILIARY_NAME = "tseitin";
+
+    private final ConstraintEncoding constraintEncoding;
+    private final GroupEncoding groupEncoding;
+    private final SymbolTable sharedSymbols;
+    private SymbolTable symbols;
+    private TseitinEncoder tseitinEncoder;
+    private boolean mandatoryClauses;
+    private final List<int[]> clauses = new ArrayList<>();
+    private final List<Problem> problems = new ArrayList<>();
+
+    public FeatureTreeToClauseList() {
+        this(ConstraintEncoding.DISTRIBUTIVE);
+    }
+
+    /**
+     * Creates a new converter.
+     * @param constraintEncoding How cross-tree constraints are transformed into clauses.
+     */
+    public FeatureTreeToClauseList(ConstraintEncoding constraintEncoding) {
+        this(constraintEncoding, null);
+    }
+
+    /**
+     * Creates a new converter whose variables are numbered by the given symbol table.
+     * The table must only contain names of the converted feature model, as each of them becomes a variable.
+     * @param constraintEncoding How cross-tree constraints are transformed into clauses.
+     * @param symbols The symbol table, or {@code null} to use a new table for each conversion.
+     */
+    public FeatureTreeToClauseList(ConstraintEncoding constraintEncoding, SymbolTable symbols) {
+        this(constraintEncoding, GroupEncoding.AUTOMATIC, symbols);
+    }
+
+    /**
+     * Creates a new converter whose variables are numbered by the given symbol table.
+     * The table must only contain names of the converted feature model, as each of them becomes a variable.
+     * @param constraintEncoding How cross-tree constraints are transformed into clauses.
+     * @param groupEncoding The encoding used for alternative and cardinality groups.
+     * @param symbols The symbol table, or {@code null} to use a new table for each conversion.
+     */
+    public FeatureTreeToClauseList(
+            ConstraintEncoding constraintEncoding, GroupEncoding groupEncoding, SymbolTable symbols) {
+        this.constraintEncoding = constraintEncoding;
+        this.groupEncoding = groupEncoding;
+        sharedSymbols = symbols;
+    }
+
+    /**
+     * Converts the given feature model.
+     * @param featureModel The feature model.
+     * @return The clause list, whose variables are numbered by the symbol table. A new table numbers them
+     * in pre-order of the feature tree, each group followed by its auxiliary variables,
+     * and then variables that only occur in constraints.
+     */
+    public Result<BooleanClauseList> convert(IFeatureModel featureModel) {
+        return convert(featureModel, true, true);
+    }
+
+    /**
+     * Converts only the feature tree of the given feature model, without its cross-tree constraints.
+     * @param featureModel The feature model.
+     * @param mandatoryClauses Whether the clauses that make mandatory children of and-groups implied by their
+     * parent are included. If not, each mandatory feature is treated as optional.
+     * @return The clause list, whose variables are numbered by the symbol table.
+     */
+    public Result<BooleanClauseList> convertFeatureTree(IFeatureModel featureModel, boolean mandatoryClauses) {
+        return convert(featureModel, mandatoryClauses, false);
+    }
+
+    /**
+     * Converts a single cross-tree constraint into clauses, whose variables are numbered by the shared symbol
+     * table or, if there is none, by the table of the last conversion.
+     * Subsequent calls never reuse auxiliary variables of earlier calls.
+     * @param formula The formula of the constraint.
+     * @return The clauses of the constraint.
+     */
+    public Result<List<int[]>> convertConstraint(IFormula formula) {
+        if (symbols == null) {
+            initializeSymbols();
+        }
+        clauses.clear();
+        problems.clear();
+        if (!convertFormulas(List.of(formula))) {
+            return Result.empty(problems);
+        }
+        List<int[]> constraintClauses = new ArrayList<>(clauses);
+        clauses.clear();
+        return Result.of(constraintClauses, problems);
+    }
+
+    private Result<BooleanClauseList> convert(
+            IFeatureModel featureModel, boolean mandatoryClauses, boolean constraints) {
+        if (symbols == null || sharedSymbols == null) {
+            initializeSymbols();
+        }
+        this.mandatoryClauses = mandatoryClauses;
+        clauses.clear();
+        problems.clear();
+
+        for (IFeatureTree root : featureModel.getRoots()) {
+            if (!convertTree(root)) {
+                return Result.empty(problems);
+            }
+        }
+        if (constraints && !convertConstraints(featureModel)) {
+            return Result.empty(problems);
+        }
+
+        BooleanClauseList clauseList = new BooleanClauseList(symbols.toVariableMap());
+        for (int[] clause : clauses) {
+            clauseList.add(new BooleanClause(clause));
+        }
+        clauses.clear();
+        return Result.of(clauseList, problems);
+    }
+
+    private void initializeSymbols() {
+        symbols = sharedSymbols != null ? sharedSymbols : new SymbolTable();
+        tseitinEncoder = new TseitinEncoder(symbols::intern, clauses::add, TSEITIN_AUXILIARY_NAME);
+    }
+
+    private boolean convertTree(IFeatureTree root) {
+        LinkedList<IFeatureTree> stack = new LinkedList<>();
+        stack.push(root);
+        Result<Integer> rootVariable = getVariable(root);
+        if (rootVariable.isEmpty()) {
+            return false;
+        }
+        clauses.add(new int[] {rootVariable.get()});
+
+        while (!stack.isEmpty()) {
+            IFeatureTree node = stack.pop();
+            int parent = getVariable(node).get();
+            String parentName = symbols.getName(parent).get();
+            List<FeatureTree.Group> groups = node.getGroups();
+            for (int i = 0; i < groups.size(); i++) {
+                List<IFeatureTree> children = node.getGroupChildren(i);
+                if (children.isEmpty()) {
+                    continue;
+                }
+                int[] literals = new int[children.size()];
+                for (int j = 0; j < literals.length; j++) {
+                    Result<Integer> child = getVariable(children.get(j));
+                    if (child.isEmpty()) {
+                        return false;
+                    }
+                    literals[j] = child.get();
+                    clauses.add(new int[] {-literals[j], parent});
+                }
+                addGroupClauses(groups.get(i), parent, literals, children, getAuxiliaryName(parentName, i));
+                for (int j = children.size() - 1; j >= 0; j--) {
+                    stack.push(children.get(j));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the name from which the auxiliary variables of a group are derived.
+     * The first group uses the name of its parent like
+     * {@link de.featjar.feature.model.io.uvl.visitor.FeatureTreeToFormulaVisitor}.
+     */
+    private static String getAuxiliaryName(String parentName, int group) {
+        return group == 0
+                ? UVLUtils.getAuxiliaryName(parentName)
+                : UVLUtils.getAuxiliaryName(parentName, String.valueOf(group));
+    }
+
+    private void addGroupClauses(
+            FeatureTree.Group group, int parent, int[] literals, List<IFeatureTree> children, String auxiliaryName) {
+        if (group.isAnd()) {
+            if (!mandatoryClauses) {
+                return;
+            }
+            for (int j = 0; j < literals.length; j++) {
+                if (children.get(j).isMandatory()) {
+                    clauses.add(new int[] {-parent, literals[j]});
+                }
+            }
+        } else if (group.isOr()) {
+            addAtLeast(parent, literals, 1);
+        } else if (group.isAlternative()) {
+            addAlternative(parent, literals, auxiliaryName);
+        } else {
+            addBetween(parent, literals, group.getLowerBound(), group.getUpperBound(), auxiliaryName);
+        }
+    }
+
+    private void addAlternative(int parent, int[] literals, String auxiliaryName) {
+        switch (groupEncoding.forAlternative(literals.length)) {
+            case BINOMIAL:
+                addAtLeast(parent, literals, 1);
+                addAtMost(literals, 1);
+                break;
+            case SEQUENTIAL_COUNTER:
+                addLadder(parent, literals, auxiliaryName);
+                break;
+            default:
+                throw new IllegalArgumentException(String.valueOf(groupEncoding));
+        }
+    }
+
+    private void addBetween(int parent, int[] literals, int lower, int upper, String auxiliaryName) {
+        final int n = literals.length;
+        lower = Math.max(lower, 0);
+        upper = upper < 0 ? n : Math.min(upper, n);
+        if (lower > upper) {
+            clauses.add(new int[] {-parent});
+            return;
+        }
+        if (lower == 0 && upper == n) {
+            return;
+        }
+        if (lower == 1 && upper == 1) {
+            addAlternative(parent, literals, auxiliaryName);
+            return;
+        }
+        switch (groupEncoding.forGroup(n, lower, upper)) {
+            case BINOMIAL:
+                addAtLeast(parent, literals, lower);
+                addAtMost(literals, upper);
+                break;
+            case SEQUENTIAL_COUNTER:
+                addSequentialCounter(parent, literals, lower, upper, auxiliaryName);
+                break;
+            default:
+                throw new IllegalArgumentException(String.valueOf(groupEncoding));
+        }
+    }
+
+    /**
+     * Adds clauses such that at least k literals hold if the parent holds,
+     * that is, each combination of n - k + 1 literals contains one that holds.
+     */
+    private void addAtLeast(int parent, int[] literals, int k) {
+        if (k <= 0) {
+            return;
+        }
+        if (k > literals.length) {
+            clauses.add(new int[] {-parent});
+            return;
+        }
+        Iterator<int[]> combinations = UVLUtils.combinations(literals.length, literals.length - k + 1);
+        while (combinations.hasNext()) {
+            int[] combination = combinations.next();
+            int[] clause = new int[combination.length + 1];
+            clause[0] = -parent;
+            for (int i = 0; i < combination.length; i++) {
+                clause[i + 1] = literals[combination[i]];
+            }
+            clauses.add(clause);
+        }
+    }
+
+    /**
+     * Adds clauses such that at most k literals hold, that is, no combination of k + 1 literals holds.
+     */
+    private void addAtMost(int[] literals, int k) {
+        if (k >= literals.length) {
+            return;
+        }
+        Iterator<int[]> combinations = UVLUtils.combinations(literals.length, k + 1);
+        while (combinations.hasNext()) {
+            int[] combination = combinations.next();
+            int[] clause = new int[combination.length];
+            for (int i = 0; i < combination.length; i++) {
+                clause[i] = -literals[combination[i]];
+            }
+            clauses.add(clause);
+        }
+    }
+
+    /**
+     * Adds the clauses of a ladder encoding such that exactly one literal holds if the parent holds.
+     * The auxiliary variable y_i is equivalent to (x_1 | ... | x_i) and named like in
+     * {@link UVLUtils#alternative(IFormula[], GroupEncoding, String)}.
+     */
+    private void addLadder(int parent, int[] literals, String auxiliaryName) {
+        final int n = literals.length;
+        if (n == 1) {
+            clauses.add(new int[] {-parent, literals[0]});
+            return;
+        }
+        int previous =
+                symbols.intern(UVLUtils.getAuxiliaryVariableName(UVLUtils.LADDER_ENCODER, auxiliaryName, 1));
+        clauses.add(new int[] {-previous, literals[0]});
+        clauses.add(new int[] {previous, -literals[0]});
+        for (int i = 1; i < n - 1; i++) {
+            int current =
+                    symbols.intern(UVLUtils.getAuxiliaryVariableName(UVLUtils.LADDER_ENCODER, auxiliaryName, i + 1));
+            clauses.add(new int[] {-current, previous, literals[i]});
+            clauses.add(new int[] {current, -previous});
+            clauses.add(new int[] {current, -literals[i]});
+            clauses.add(new int[] {-literals[i], -previous});
+            previous = current;
+        }
+        clauses.add(new int[] {-literals[n - 1], -previous});
+        clauses.add(new int[] {-parent, previous, literals[n - 1]});
+    }
+
+    /**
+     * Adds the clauses of a sequential counter such that between lower and upper literals hold if the parent holds.
+     * The auxiliary variable s_i_j is equivalent to "at least j of x_1, ..., x_i hold" and named like in
+     * {@link UVLUtils#between(IFormula[], int, int, GroupEncoding, String)}.
+     */
+    private void addSequentialCounter(int parent, int[] literals, int lower, int upper, String auxiliaryName) {
+        final int n = literals.length;
+        final int m = upper < n ? upper + 1 : lower;
+        int[] previous = new int[0];
+        for (int i = 1; i <= n; i++) {
+            final int literal = literals[i - 1];
+            final int[] current = new int[Math.min(i, m)];
+            for (int j = 1; j <= current.length; j++) {
+                final int counter = symbols.intern(
+                        UVLUtils.getAuxiliaryVariableName(UVLUtils.COUNTER_ENCODER, auxiliaryName, i + "_" + j));
+                if (j == 1 && i == 1) {
+                    // counter <=> literal
+                    clauses.add(new int[] {-counter, literal});
+                    clauses.add(new int[] {counter, -literal});
+                } else if (j == 1) {
+                    // counter <=> previous_1 | literal
+                    clauses.add(new int[] {-counter, previous[0], literal});
+                    clauses.add(new int[] {counter, -previous[0]});
+                    clauses.add(new int[] {counter, -literal});
+                } else if (j == i) {
+                    // counter <=> previous_j-1 & literal
+                    clauses.add(new int[] {-counter, previous[j - 2]});
+                    clauses.add(new int[] {-counter, literal});
+                    clauses.add(new int[] {counter, -previous[j - 2], -literal});
+                } else {
+                    // counter <=> previous_j | (previous_j-1 & literal)
+                    clauses.add(new int[] {-counter, previous[j - 1], previous[j - 2]});
+                    clauses.add(new int[] {-counter, previous[j - 1], literal});
+                    clauses.add(new int[] {counter, -previous[j - 1]});
+                    clauses.add(new int[] {counter, -previous[j - 2], -literal});
+                }
+                current[j - 1] = counter;
+            }
+            previous = current;
+        }
+        if (lower > 0) {
+            clauses.add(new int[] {-parent, previous[lower - 1]});
+        }
+        if (upper < n) {
+            clauses.add(new int[] {-previous[upper]});
+        }
+    }
+
+    private boolean convertConstraints(IFeatureModel featureModel) {
+        List<IFormula> formulas = new ArrayList<>();
+        for (IConstraint constraint : featureModel.getConstraints()) {
+            formulas.add(constraint.getFormula());
+        }
+        return convertFormulas(formulas);
+    }
+
+    private boolean convertFormulas(List<IFormula> formulas) {
+        if (formulas.isEmpty()) {
+            return true;
+        }
+        if (constraintEncoding == ConstraintEncoding.TSEITIN) {
+            for (IFormula formula : formulas) {
+                List<Problem> encodingProblems = tseitinEncoder.encode(formula);
+                if (!encodingProblems.isEmpty()) {
+                    problems.addAll(encodingProblems);
+                    return false;
+                }
+            }
+            return true;
+        }
+        Result<BooleanClauseList> constraintClauses = Computations.of((IFormula) new And(formulas))
+                .map(ComputeNNFFormula::new)
+                .map(ComputeCNFFormula::new)
+                .map(ComputeBooleanClauseList::new)
+                .computeResult();
+        problems.addAll(constraintClauses.getProblems());
+        if (constraintClauses.isEmpty()) {
+            return false;
+        }
+
+        // map the constraints' variables into the variables of the feature tree, looking up each name once
+        VariableMap constraintVariables = constraintClauses.get().getVariableMap();
+        int[] variableIds = new int[constraintVariables.getVariableCount() + 1];
+        for (int variable = 1; variable < variableIds.length; variable++) {
+            variableIds[variable] = symbols.intern(constraintVariables.get(variable).get());
+        }
+        BooleanAssignmentList constraintClauseList = constraintClauses.get().toAssignmentList();
+        for (int i = 0; i < constraintClauseList.size(); i++) {
+            BooleanAssignment clause = constraintClauseList.get(i).get();
+            int[] literals = new int[clause.size()];
+            for (int j = 0; j < literals.length; j++) {
+                int literal = clause.get(j);
+                int variable = variableIds[Math.abs(literal)];
+                literals[j] = literal > 0 ? variable : -variable;
+            }
+            clauses.add(literals);
+        }
+        return true;
+    }
+
+    private Result<Integer> getVariable(IFeatureTree node) {
+        Result<String> name = node.getFeature().getName();
+        if (name.isEmpty()) {
+            problems.addAll(name.getProblems());
+            problems.add(new Problem("Feature has no name"));
+            return Result.empty(problems);
+        }
+        return Result.of(symbols.intern(name.get()));
+    }
+}
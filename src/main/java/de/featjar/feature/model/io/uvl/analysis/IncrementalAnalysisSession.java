@@ -0,0 +1,495 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.feature.model.FeatureTree;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.io.uvl.SymbolTable;
+import de.featjar.feature.model.io.uvl.UVLUtils;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignmentList;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.structure.IFormula;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the analysis results of a feature model up to date while the model is edited.
+ * The feature tree without its mandatory relations is loaded into a {@link SolverSession} once.
+ * Every cross-tree constraint and every mandatory relation is guarded by its own activation literal, that is,
+ * its clauses only hold in queries that assume the activation literal. Removing a constraint or making a feature
+ * optional therefore only drops the activation literal from the assumptions, and the solver keeps its learned clauses.
+ * After an edit, only the results the edit can affect are recomputed:
+ * an edit that restricts the model (adding a constraint, making a feature mandatory) can only add core and dead
+ * features, and an edit that relaxes the model (removing a constraint, making a feature optional) can only remove
+ * them. The solution count and the atomic sets are recomputed on demand.
+ */
+public class IncrementalAnalysisSession {
+
+    /**
+     * An edit of the feature model.
+     */
+    public static final class Edit {
+
+        /**
+         * The kind of an edit.
+         */
+        public enum Kind {
+            ADD_CONSTRAINT,
+            REMOVE_CONSTRAINT,
+            SET_MANDATORY,
+            SET_OPTIONAL
+        }
+
+        private final Kind kind;
+        private final IFormula formula;
+        private final String featureName;
+
+        private Edit(Kind kind, IFormula formula, String featureName) {
+            this.kind = kind;
+            this.formula = formula;
+            this.featureName = featureName;
+        }
+
+        /**
+         * Creates an edit that adds a constraint. Adding the same formula instance twice is rejected.
+         * @param formula The formula of the constraint.
+         * @return The edit.
+         */
+        public static Edit addConstraint(IFormula formula) {
+            return new Edit(Kind.ADD_CONSTRAINT, formula, null);
+        }
+
+        /**
+         * Creates an edit that removes a constraint, which is identified by the same formula instance that was
+         * added or contained in the initial feature model.
+         * @param formula The formula of the constraint.
+         * @return The edit.
+         */
+        public static Edit removeConstraint(IFormula formula) {
+            return new Edit(Kind.REMOVE_CONSTRAINT, formula, null);
+        }
+
+        public static Edit setMandatory(String featureName) {
+            return new Edit(Kind.SET_MANDATORY, null, featureName);
+        }
+
+        public static Edit setOptional(String featureName) {
+            return new Edit(Kind.SET_OPTIONAL, null, featureName);
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public IFormula getFormula() {
+            return formula;
+        }
+
+        public String getFeatureName() {
+            return featureName;
+        }
+
+        /**
+         * Returns whether this edit can only remove solutions.
+         * @return Whether this edit restricts the feature model.
+         */
+        public boolean isRestricting() {
+            return kind == Kind.ADD_CONSTRAINT || kind == Kind.SET_MANDATORY;
+        }
+    }
+
+    /**
+     * Clauses that only hold while their activation literal is assumed.
+     */
+    private static final class Guard {
+        private final int activation;
+        private final List<int[]> clauses;
+        private boolean active;
+
+        private Guard(int activation, List<int[]> clauses) {
+            this.activation = activation;
+            this.clauses = clauses;
+        }
+    }
+
+    private static final String ACTIVATION_AUXILIARY_NAME = "activation";
+
+    private final SymbolTable symbols = new SymbolTable();
+    private final FeatureTreeToClauseList converter;
+    private final List<int[]> treeClauses = new ArrayList<>();
+    private final SolverSession session;
+    private final Map<IFormula, Guard> constraintGuards = new IdentityHashMap<>();
+    private final Map<String, Guard> mandatoryGuards = new HashMap<>();
+    private final Map<String, int[]> andGroupChildren = new HashMap<>();
+    private final Map<String, Long> analysisNanos = new LinkedHashMap<>();
+    private int activationCount;
+
+    private boolean satisfiable;
+    private BooleanAssignment coreAndDead;
+    private BigInteger solutionCount;
+    private BooleanAssignmentList atomicSets;
+
+    /**
+     * Creates a new session and computes satisfiability and core and dead features of the given feature model.
+     * @param featureModel The feature model.
+     * @param constraintEncoding How cross-tree constraints are transformed into clauses.
+     */
+    public IncrementalAnalysisSession(IFeatureModel featureModel, ConstraintEncoding constraintEncoding) {
+        converter = new FeatureTreeToClauseList(constraintEncoding, symbols);
+        BooleanClauseList treeClauseList =
+                converter.convertFeatureTree(featureModel, false).orElseThrow();
+        BooleanAssignmentList clauses = treeClauseList.toAssignmentList();
+        for (int i = 0; i < clauses.size(); i++) {
+            treeClauses.add(clauses.get(i).get().get());
+        }
+        session = new SolverSession(treeClauseList);
+
+        for (IFeatureTree root : featureModel.getRoots()) {
+            collectAndGroupChildren(root);
+        }
+        for (Map.Entry<String, int[]> child : andGroupChildren.entrySet()) {
+            if (child.getValue()[2] != 0) {
+                activateMandatory(child.getKey());
+            }
+        }
+        for (IConstraint constraint : featureModel.getConstraints()) {
+            addConstraint(constraint.getFormula()).orElseThrow();
+        }
+        recomputeAll();
+    }
+
+    /**
+     * Applies the given edit and updates the results it can affect.
+     * @param edit The edit.
+     * @return The problems that occurred, which are not empty if the edit could not be applied.
+     */
+    public List<Problem> apply(Edit edit) {
+        List<Problem> problems = new ArrayList<>();
+        switch (edit.getKind()) {
+            case ADD_CONSTRAINT:
+                Result<Guard> guard = addConstraint(edit.getFormula());
+                if (guard.isEmpty()) {
+                    problems.addAll(guard.getProblems());
+                }
+                break;
+            case REMOVE_CONSTRAINT:
+                Guard removed = constraintGuards.remove(edit.getFormula());
+                if (removed == null) {
+                    problems.add(new Problem("Constraint is not part of the model: " + edit.getFormula()));
+                } else {
+                    removed.active = false;
+                }
+                break;
+            case SET_MANDATORY:
+                if (!andGroupChildren.containsKey(edit.getFeatureName())) {
+                    problems.add(new Problem(edit.getFeatureName() + " is no child in an and-group."));
+                } else {
+                    activateMandatory(edit.getFeatureName());
+                }
+                break;
+            case SET_OPTIONAL:
+                Guard mandatory = mandatoryGuards.get(edit.getFeatureName());
+                if (mandatory != null) {
+                    mandatory.active = false;
+                }
+                break;
+            default:
+                problems.add(new Problem("Unsupported edit: " + edit.getKind()));
+        }
+        if (problems.isEmpty()) {
+            update(edit.isRestricting());
+        }
+        return problems;
+    }
+
+    /**
+     * Returns whether the current feature model is satisfiable.
+     * @return Whether the feature model is satisfiable.
+     */
+    public boolean isSatisfiable() {
+        return satisfiable;
+    }
+
+    /**
+     * Returns the core and dead features of the current feature model.
+     * @return An assignment containing positive literals for core and negative literals for dead features,
+     * or {@code null} if the feature model is not satisfiable.
+     */
+    public BooleanAssignment getCoreAndDeadFeatures() {
+        return coreAndDead;
+    }
+
+    /**
+     * Returns the number of solutions of the current feature model, computing it if an edit invalidated it.
+     * @return The number of solutions.
+     */
+    public BigInteger getSolutionCount() {
+        if (solutionCount == null) {
+            solutionCount = time("solution-count", () -> new DDNNFCompiler(getClauseList())
+                    .compile()
+                    .orElseThrow()
+                    .count());
+        }
+        return solutionCount;
+    }
+
+    /**
+     * Returns the atomic sets of the current feature model, computing them if an edit invalidated them.
+     * They are computed by queries on the same solver as core and dead features and contain no auxiliary variables.
+     * @return The atomic sets, or {@code null} if the feature model is not satisfiable.
+     */
+    public BooleanAssignmentList getAtomicSets() {
+        if (atomicSets == null && satisfiable) {
+            atomicSets = time("atomic-sets", () -> new BooleanAssignmentList(
+                    symbols.toVariableMap(),
+                    session.computeAtomicSets(
+                                    getAssumptions(),
+                                    getFeatureVariables(new boolean[0], false),
+                                    AnalysisBudget.unlimited())
+                            .orElseThrow()));
+        }
+        return atomicSets;
+    }
+
+    /**
+     * Returns the clauses of the current feature model.
+     * The clauses of active constraints and mandatory relations are contained without their activation literals.
+     * Auxiliary variables that no clause contains, such as activation literals, are fixed by a unit clause,
+     * so the number of solutions equals the one of the model.
+     * @return The clause list.
+     */
+    public BooleanClauseList getClauseList() {
+        VariableMap variableMap = symbols.toVariableMap();
+        BooleanClauseList clauseList = new BooleanClauseList(variableMap);
+        boolean[] used = new boolean[variableMap.getVariableCount() + 1];
+        addClauses(clauseList, treeClauses, used);
+        for (Guard guard : constraintGuards.values()) {
+            addClauses(clauseList, guard.clauses, used);
+        }
+        for (Guard guard : mandatoryGuards.values()) {
+            if (guard.active) {
+                addClauses(clauseList, guard.clauses, used);
+            }
+        }
+        for (int variable = 1; variable < used.length; variable++) {
+            if (!used[variable] && UVLUtils.isAuxiliaryVariable(symbols.getName(variable).get())) {
+                clauseList.add(new BooleanClause(-variable));
+            }
+        }
+        return clauseList;
+    }
+
+    /**
+     * Returns the symbol table that numbers the variables of all results.
+     * Activation literals are auxiliary variables, see {@link UVLUtils#isAuxiliaryVariable(String)}.
+     * @return The symbol table.
+     */
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Returns the number of solver queries so far.
+     * @return The number of queries.
+     */
+    public int getQueryCount() {
+        return session.getQueryCount();
+    }
+
+    /**
+     * Returns the time of the latest computation of each analysis.
+     * @return A map from analysis name to time in nanoseconds.
+     */
+    public Map<String, Long> getAnalysisNanos() {
+        return new LinkedHashMap<>(analysisNanos);
+    }
+
+    private void update(boolean restricting) {
+        solutionCount = null;
+        atomicSets = null;
+        if (restricting) {
+            if (!satisfiable) {
+                return;
+            }
+            satisfiable = time("satisfiable", () -> session.hasSolution(getAssumptions()).orElseThrow());
+            if (!satisfiable) {
+                coreAndDead = null;
+                return;
+            }
+            // core and dead features stay core and dead, so only the other features are checked
+            boolean[] known = new boolean[session.getVariableCount() + 1];
+            for (int literal : coreAndDead.get()) {
+                known[Math.abs(literal)] = true;
+            }
+            int[] candidates = getFeatureVariables(known, false);
+            BooleanAssignment newCoreAndDead = time("core", () -> session.computeCoreAndDead(
+                            getAssumptions(), candidates)
+                    .orElseThrow());
+            int[] merged = new int[coreAndDead.size() + newCoreAndDead.size()];
+            System.arraycopy(coreAndDead.get(), 0, merged, 0, coreAndDead.size());
+            System.arraycopy(newCoreAndDead.get(), 0, merged, coreAndDead.size(), newCoreAndDead.size());
+            coreAndDead = new BooleanAssignment(merged);
+        } else {
+            if (!satisfiable) {
+                recomputeAll();
+                return;
+            }
+            // only core and dead features can become variable
+            boolean[] known = new boolean[session.getVariableCount() + 1];
+            for (int literal : coreAndDead.get()) {
+                known[Math.abs(literal)] = true;
+            }
+            int[] candidates = getFeatureVariables(known, true);
+            coreAndDead = time("core", () -> session.computeCoreAndDead(getAssumptions(), candidates)
+                    .orElseThrow());
+        }
+    }
+
+    private void recomputeAll() {
+        solutionCount = null;
+        atomicSets = null;
+        satisfiable = time("satisfiable", () -> session.hasSolution(getAssumptions()).orElseThrow());
+        coreAndDead = satisfiable
+                ? time("core", () -> session.computeCoreAndDead(
+                                getAssumptions(), getFeatureVariables(new boolean[0], false))
+                        .orElseThrow())
+                : null;
+    }
+
+    /**
+     * Returns the variables of features, that is, all non-auxiliary variables that are selected or not selected.
+     */
+    private int[] getFeatureVariables(boolean[] selection, boolean selected) {
+        int variableCount = session.getVariableCount();
+        int[] variables = new int[variableCount];
+        int count = 0;
+        for (int variable = 1; variable <= variableCount; variable++) {
+            boolean isSelected = variable < selection.length && selection[variable];
+            if (isSelected == selected && !UVLUtils.isAuxiliaryVariable(symbols.getName(variable).get())) {
+                variables[count++] = variable;
+            }
+        }
+        return Arrays.copyOf(variables, count);
+    }
+
+    private int[] getAssumptions() {
+        int[] assumptions = new int[constraintGuards.size() + mandatoryGuards.size()];
+        int count = 0;
+        for (Guard guard : constraintGuards.values()) {
+            assumptions[count++] = guard.activation;
+        }
+        for (Guard guard : mandatoryGuards.values()) {
+            assumptions[count++] = guard.active ? guard.activation : -guard.activation;
+        }
+        return assumptions;
+    }
+
+    private Result<Guard> addConstraint(IFormula formula) {
+        if (constraintGuards.containsKey(formula)) {
+            return Result.empty(List.of(new Problem("Constraint is already part of the model: " + formula)));
+        }
+        Result<List<int[]>> clauses = converter.convertConstraint(formula);
+        if (clauses.isEmpty()) {
+            return Result.empty(clauses.getProblems());
+        }
+        Guard guard = createGuard(clauses.get());
+        constraintGuards.put(formula, guard);
+        return Result.of(guard);
+    }
+
+    private void activateMandatory(String featureName) {
+        Guard guard = mandatoryGuards.get(featureName);
+        if (guard == null) {
+            int[] relation = andGroupChildren.get(featureName);
+            List<int[]> clauses = new ArrayList<>(1);
+            clauses.add(new int[] {-relation[0], relation[1]});
+            guard = createGuard(clauses);
+            mandatoryGuards.put(featureName, guard);
+        }
+        guard.active = true;
+    }
+
+    private Guard createGuard(List<int[]> clauses) {
+        int activation = symbols.intern(UVLUtils.getAuxiliaryVariableName(ACTIVATION_AUXILIARY_NAME, ++activationCount));
+        for (int[] clause : clauses) {
+            int[] guarded = Arrays.copyOf(clause, clause.length + 1);
+            guarded[clause.length] = -activation;
+            session.addClause(guarded);
+        }
+        Guard guard = new Guard(activation, clauses);
+        guard.active = true;
+        return guard;
+    }
+
+    private static void addClauses(BooleanClauseList clauseList, List<int[]> clauses, boolean[] used) {
+        for (int[] clause : clauses) {
+            for (int literal : clause) {
+                used[Math.abs(literal)] = true;
+            }
+            clauseList.add(new BooleanClause(clause));
+        }
+    }
+
+    /**
+     * Collects the parent and child variables of all children of and-groups, and whether they are mandatory.
+     */
+    private void collectAndGroupChildren(IFeatureTree root) {
+        LinkedList<IFeatureTree> stack = new LinkedList<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            IFeatureTree node = stack.pop();
+            int parent = symbols.intern(node.getFeature().getName().get());
+            List<FeatureTree.Group> groups = node.getGroups();
+            for (int i = 0; i < groups.size(); i++) {
+                for (IFeatureTree child : node.getGroupChildren(i)) {
+                    String name = child.getFeature().getName().get();
+                    if (groups.get(i).isAnd()) {
+                        andGroupChildren.put(
+                                name, new int[] {parent, symbols.intern(name), child.isMandatory() ? 1 : 0});
+                    }
+                    stack.push(child);
+                }
+            }
+        }
+    }
+
+    private <T> T time(String analysis, Supplier<T> computation) {
+        long start = System.nanoTime();
+        T result = computation.get();
+        analysisNanos.put(analysis, System.nanoTime() - start);
+        return result;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.assignment.BooleanSolution;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * Enumerates the solutions of a clause list one at a time.
+ * A solution is only computed when the previous one has been consumed, so consumers control the pace and
+ * no more than one solution is held in memory.
+ * Enumeration stops after a given number of solutions or when its {@link AnalysisBudget} is exhausted, whichever
+ * comes first. The solutions returned until then are a partial result, and their number is a lower bound on the
+ * number of solutions.
+ * Each enumerator uses its own solver, as the blocking clauses it adds would change the answers of other queries.
+ */
+public class SolutionEnumerator implements Iterator<BooleanSolution> {
+
+    private final SolverSession session;
+    private final long limit;
+    private final AnalysisBudget budget;
+
+    private BooleanSolution next;
+    private long count;
+    private boolean exhausted;
+    private boolean timedOut;
+    private boolean limitReached;
+
+    /**
+     * Creates a new enumerator without limit or timeout.
+     * @param clauseList The clause list.
+     */
+    public SolutionEnumerator(BooleanClauseList clauseList) {
+        this(clauseList, Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * Creates a new enumerator.
+     * @param clauseList The clause list.
+     * @param limit The maximum number of solutions.
+     * @param timeoutMillis The maximum time for the whole enumeration in milliseconds, or {@code 0} for no timeout.
+     */
+    public SolutionEnumerator(BooleanClauseList clauseList, long limit, long timeoutMillis) {
+        this(clauseList, limit, new AnalysisBudget(timeoutMillis, 0).start());
+    }
+
+    /**
+     * Creates a new enumerator.
+     * Cancelling the budget interrupts a running solver call, so enumeration stops promptly.
+     * @param clauseList The clause list.
+     * @param limit The maximum number of solutions.
+     * @param budget The budget of the whole enumeration, which should already be started.
+     */
+    public SolutionEnumerator(BooleanClauseList clauseList, long limit, AnalysisBudget budget) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+        }
+        session = new SolverSession(clauseList);
+        this.limit = limit;
+        this.budget = budget;
+        budget.onCancel(() -> session.getSolver().expireTimeout());
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !exhausted) {
+            next = computeNext();
+            if (next == null) {
+                exhausted = true;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public BooleanSolution next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        BooleanSolution solution = next;
+        next = null;
+        count++;
+        return solution;
+    }
+
+    /**
+     * Returns the remaining solutions as a sequential stream.
+     * @return A stream of solutions, which is computed lazily.
+     */
+    public Stream<BooleanSolution> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(
+                        this, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL),
+                false);
+    }
+
+    /**
+     * Returns the number of solutions returned so far.
+     * @return The number of solutions.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns whether the enumeration stopped because the timeout expired or the budget was otherwise exhausted.
+     * @return Whether the budget was exhausted.
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Returns whether all solutions have been returned, that is, enumeration stopped neither by limit nor by timeout.
+     * If there are exactly as many solutions as the limit, the enumeration is complete.
+     * @return Whether all solutions have been returned.
+     */
+    public boolean isComplete() {
+        return exhausted && next == null && !timedOut && !limitReached;
+    }
+
+    private BooleanSolution computeNext() {
+        if (session.isContradiction()) {
+            return null;
+        }
+        BooleanSolution solution = solve();
+        if (solution != null && count >= limit) {
+            // the limit only cuts the enumeration short if there is one more solution
+            limitReached = true;
+            return null;
+        }
+        return solution;
+    }
+
+    private BooleanSolution solve() {
+        synchronized (session.getSolver()) {
+            ISolver solver = session.getSolver();
+            if (budget.isExhausted()) {
+                timedOut = true;
+                return null;
+            }
+            long remaining = budget.getRemainingMillis();
+            if (remaining != Long.MAX_VALUE) {
+                solver.setTimeoutMs(Math.max(1, remaining));
+            }
+            try {
+                if (!solver.isSatisfiable(false)) {
+                    return null;
+                }
+                int[] model = solver.model();
+                // block the found solution, such that the next query yields a different one
+                int[] blockingClause = new int[model.length];
+                for (int i = 0; i < model.length; i++) {
+                    blockingClause[i] = -model[i];
+                }
+                try {
+                    solver.addBlockingClause(new VecInt(blockingClause));
+                } catch (ContradictionException e) {
+                    exhausted = true;
+                }
+                return new BooleanSolution(model);
+            } catch (TimeoutException e) {
+                timedOut = true;
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignmentList;
+import de.featjar.formula.assignment.BooleanClauseList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * A SAT4J solver that is loaded with a clause list once and then answers many queries under assumptions.
+ * The solver is kept hot between queries, so clauses learned by earlier queries speed up later ones.
+ * All queries are synchronized on the solver, as a single SAT4J solver is not thread-safe. As the solver is the lock,
+ * the {@link AnalysisScheduler} and {@link AnalysisMetrics} hold it for analyses and statistics on the same solver.
+ */
+public class SolverSession {
+
+    private final ISolver solver;
+    private int variableCount;
+    private boolean trivialContradiction;
+    private int queryCount;
+
+    /**
+     * Creates a new session and loads all clauses of the given clause list.
+     * The session ranges over all variables of the clause list's variable map.
+     * @param clauseList The clause list.
+     */
+    public SolverSession(BooleanClauseList clauseList) {
+        this(clauseList, clauseList.getVariableMap().getVariableCount());
+    }
+
+    /**
+     * Creates a new session and loads all clauses of the given clause list.
+     * @param clauseList The clause list.
+     * @param variableCount The number of variables, which is increased if a clause contains a larger variable.
+     * Variables that occur in no clause are unconstrained.
+     */
+    public SolverSession(BooleanClauseList clauseList, int variableCount) {
+        solver = SolverFactory.newDefault();
+        solver.setKeepSolverHot(true);
+        solver.setDBSimplificationAllowed(false);
+
+        BooleanAssignmentList clauses = clauseList.toAssignmentList();
+        int maxVariable = variableCount;
+        solver.newVar(maxVariable);
+        boolean contradiction = false;
+        for (int i = 0; i < clauses.size(); i++) {
+            BooleanAssignment clause = clauses.get(i).get();
+            int[] literals = new int[clause.size()];
+            for (int j = 0; j < literals.length; j++) {
+                literals[j] = clause.get(j);
+                maxVariable = Math.max(maxVariable, Math.abs(literals[j]));
+            }
+            if (!contradiction) {
+                solver.newVar(maxVariable);
+                try {
+                    solver.addClause(new VecInt(literals));
+                } catch (ContradictionException e) {
+                    contradiction = true;
+                }
+            }
+        }
+        variableCount = maxVariable;
+        trivialContradiction = contradiction;
+    }
+
+    /**
+     * Returns the number of variables known to the solver.
+     * @return The number of variables.
+     */
+    public int getVariableCount() {
+        synchronized (solver) {
+            return variableCount;
+        }
+    }
+
+    /**
+     * Returns the number of queries answered by this session so far.
+     * @return The number of queries.
+     */
+    public int getQueryCount() {
+        synchronized (solver) {
+            return queryCount;
+        }
+    }
+
+    /**
+     * Returns whether a contradiction was already detected while loading the clauses.
+     * @return Whether the clauses are trivially unsatisfiable.
+     */
+    public boolean isContradiction() {
+        synchronized (solver) {
+            return trivialContradiction;
+        }
+    }
+
+    /**
+     * Adds a clause to the solver, which keeps all clauses learned so far.
+     * Clauses can never be removed, but a clause that contains the negation of an activation literal only holds
+     * in queries that assume the activation literal.
+     * @param literals The literals of the clause, which may contain variables unknown to the solver so far.
+     * @return Whether the clauses are still not trivially unsatisfiable.
+     */
+    public boolean addClause(int... literals) {
+        synchronized (solver) {
+            for (int literal : literals) {
+                variableCount = Math.max(variableCount, Math.abs(literal));
+            }
+            if (trivialContradiction) {
+                return false;
+            }
+            solver.newVar(variableCount);
+            try {
+                solver.addClause(new VecInt(literals));
+            } catch (ContradictionException e) {
+                trivialContradiction = true;
+            }
+            return !trivialContradiction;
+        }
+    }
+
+    /**
+     * Returns the underlying solver. Callers must synchronize on the solver while using it.
+     * @return The solver.
+     */
+    public ISolver getSolver() {
+        return solver;
+    }
+
+    /**
+     * Checks whether the clauses are satisfiable under the given assumptions.
+     * @param assumptions Literals that are assumed to be true for this query only.
+     * @return Whether a solution exists, or an empty result if the solver timed out.
+     */
+    public Result<Boolean> hasSolution(int... assumptions) {
+        synchronized (solver) {
+            queryCount++;
+            if (trivialContradiction) {
+                return Result.of(Boolean.FALSE);
+            }
+            try {
+                return Result.of(solver.isSatisfiable(new VecInt(assumptions), false));
+            } catch (TimeoutException e) {
+                return Result.empty(e);
+            }
+        }
+    }
+
+    /**
+     * Finds a solution under the given assumptions.
+     * @param assumptions Literals that are assumed to be true for this query only.
+     * @return A solution containing one literal per variable, or an empty result if no solution exists.
+     */
+    public Result<int[]> findSolution(int... assumptions) {
+        synchronized (solver) {
+            Result<Boolean> hasSolution = hasSolution(assumptions);
+            if (hasSolution.isEmpty()) {
+                return Result.empty(hasSolution.getProblems());
+            }
+            return hasSolution.get() ? Result.of(solver.model()) : Result.empty();
+        }
+    }
+
+    /**
+     * Computes all core and dead variables.
+     * Each variable is checked by one query under the assumption of its negated value in a known solution.
+     * Variables that take different values in two solutions found along the way are skipped.
+     * @return An assignment containing positive literals for core and negative literals for dead variables,
+     * or an empty result if the clauses are unsatisfiable or the solver timed out.
+     */
+    public Result<BooleanAssignment> computeCoreAndDead() {
+        synchronized (solver) {
+            int[] variables = new int[variableCount];
+            for (int variable = 1; variable <= variableCount; variable++) {
+                variables[variable - 1] = variable;
+            }
+            return computeCoreAndDead(new int[0], variables);
+        }
+    }
+
+    /**
+     * Computes which of the given variables are core or dead under the given assumptions.
+     * @param assumptions Literals that are assumed to be true for all queries.
+     * @param variables The variables to check.
+     * @return An assignment containing positive literals for core and negative literals for dead variables,
+     * or an empty result if the clauses are unsatisfiable under the assumptions or the solver timed out.
+     */
+    public Result<BooleanAssignment> computeCoreAndDead(int[] assumptions, int[] variables) {
+        synchronized (solver) {
+            return computeCoreAndDead(assumptions, variables, AnalysisBudget.unlimited());
+        }
+    }
+
+    /**
+     * Computes which of the given variables are core or dead under the given assumptions within the given budget.
+     * The budget is checked between two queries, and cancelling it interrupts a running query.
+     * If the budget is exhausted, the variables confirmed so far are returned together with a warning,
+     * so the result contains only core and dead variables, but maybe not all of them.
+     * @param assumptions Literals that are assumed to be true for all queries.
+     * @param variables The variables to check.
+     * @param budget The budget.
+     * @return An assignment containing positive literals for core and negative literals for dead variables,
+     * or an empty result if the clauses are unsatisfiable under the assumptions or the solver timed out before
+     * finding a first solution.
+     */
+    public Result<BooleanAssignment> computeCoreAndDead(
+            int[] assumptions, int[] variables, AnalysisBudget budget) {
+        synchronized (solver) {
+            budget.onCancel(solver::expireTimeout);
+            Result<int[]> firstSolution = findSolution(assumptions);
+            if (firstSolution.isEmpty()) {
+                return Result.empty(firstSolution.getProblems());
+            }
+            // candidates[v] holds the value that variable v took in all solutions so far, or 0 if it varied
+            int[] candidates = new int[variableCount + 1];
+            for (int literal : firstSolution.get()) {
+                if (Math.abs(literal) <= variableCount) {
+                    candidates[Math.abs(literal)] = literal;
+                }
+            }
+            int[] coreAndDead = new int[variables.length];
+            int[] query = Arrays.copyOf(assumptions, assumptions.length + 1);
+            int count = 0;
+            for (int variable : variables) {
+                int literal = candidates[variable];
+                if (literal == 0) {
+                    continue;
+                }
+                if (budget.isExhausted()) {
+                    return getPartialCoreAndDead(coreAndDead, count, budget);
+                }
+                query[assumptions.length] = -literal;
+                Result<Boolean> hasSolution = hasSolution(query);
+                if (hasSolution.isEmpty()) {
+                    if (budget.isExhausted()) {
+                        return getPartialCoreAndDead(coreAndDead, count, budget);
+                    }
+                    return Result.empty(hasSolution.getProblems());
+                }
+                if (hasSolution.get()) {
+                    for (int other : solver.model()) {
+                        int otherVariable = Math.abs(other);
+                        if (otherVariable <= variableCount && candidates[otherVariable] != other) {
+                            candidates[otherVariable] = 0;
+                        }
+                    }
+                } else {
+                    coreAndDead[count++] = literal;
+                }
+            }
+            return Result.of(new BooleanAssignment(Arrays.copyOf(coreAndDead, count)));
+        }
+    }
+
+    /**
+     * Computes the atomic sets among the given variables under the given assumptions within the given budget.
+     * The literals of an atomic set are either all true or all false in each solution.
+     * The first atomic set contains the core and dead variables, each other set is checked by two queries per
+     * candidate, where candidates that are not related in a solution found along the way are skipped.
+     * If the budget is exhausted, the atomic sets completed so far are returned together with a warning.
+     * @param assumptions Literals that are assumed to be true for all queries.
+     * @param variables The variables to check.
+     * @param budget The budget.
+     * @return The atomic sets, or an empty result if the clauses are unsatisfiable under the assumptions or the
+     * solver timed out before finding a first solution.
+     */
+    public Result<List<BooleanAssignment>> computeAtomicSets(
+            int[] assumptions, int[] variables, AnalysisBudget budget) {
+        synchronized (solver) {
+            Result<BooleanAssignment> coreAndDead = computeCoreAndDead(assumptions, variables, budget);
+            if (coreAndDead.isEmpty()) {
+                return Result.empty(coreAndDead.getProblems());
+            }
+            List<BooleanAssignment> atomicSets = new ArrayList<>();
+            atomicSets.add(coreAndDead.get());
+            if (!coreAndDead.getProblems().isEmpty()) {
+                return Result.of(atomicSets, coreAndDead.getProblems());
+            }
+            Result<int[]> firstSolution = findSolution(assumptions);
+            if (firstSolution.isEmpty()) {
+                return Result.empty(firstSolution.getProblems());
+            }
+            // all solutions found so far, which rule out candidates without further queries
+            List<int[]> solutions = new ArrayList<>();
+            solutions.add(firstSolution.get());
+            boolean[] done = new boolean[variableCount + 1];
+            for (int literal : coreAndDead.get().get()) {
+                done[Math.abs(literal)] = true;
+            }
+            int[] query = Arrays.copyOf(assumptions, assumptions.length + 2);
+            int[] atomicSet = new int[variables.length];
+            for (int i = 0; i < variables.length; i++) {
+                int variable = variables[i];
+                if (done[variable]) {
+                    continue;
+                }
+                done[variable] = true;
+                int literal = getLiteral(firstSolution.get(), variable);
+                int size = 0;
+                atomicSet[size++] = literal;
+                for (int j = i + 1; j < variables.length; j++) {
+                    int other = variables[j];
+                    if (done[other] || !isRelated(solutions, firstSolution.get(), variable, other)) {
+                        continue;
+                    }
+                    int otherLiteral = getLiteral(firstSolution.get(), other);
+                    boolean related = true;
+                    for (int sign : new int[] {1, -1}) {
+                        if (budget.isExhausted()) {
+                            return getPartialAtomicSets(atomicSets, budget);
+                        }
+                        query[assumptions.length] = sign * literal;
+                        query[assumptions.length + 1] = -sign * otherLiteral;
+                        Result<Boolean> hasSolution = hasSolution(query);
+                        if (hasSolution.isEmpty()) {
+                            if (budget.isExhausted()) {
+                                return getPartialAtomicSets(atomicSets, budget);
+                            }
+                            return Result.empty(hasSolution.getProblems());
+                        }
+                        if (hasSolution.get()) {
+                            solutions.add(solver.model());
+                            related = false;
+                            break;
+                        }
+                    }
+                    if (related) {
+                        done[other] = true;
+                        atomicSet[size++] = otherLiteral;
+                    }
+                }
+                atomicSets.add(new BooleanAssignment(Arrays.copyOf(atomicSet, size)));
+            }
+            return Result.of(atomicSets);
+        }
+    }
+
+    private static int getLiteral(int[] solution, int variable) {
+        return variable <= solution.length ? solution[variable - 1] : -variable;
+    }
+
+    /**
+     * Returns whether both variables keep their relation from the first solution in all given solutions.
+     */
+    private static boolean isRelated(List<int[]> solutions, int[] firstSolution, int variable, int other) {
+        int literal = getLiteral(firstSolution, variable);
+        int otherLiteral = getLiteral(firstSolution, other);
+        for (int[] solution : solutions) {
+            if ((getLiteral(solution, variable) == literal) != (getLiteral(solution, other) == otherLiteral)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Result<List<BooleanAssignment>> getPartialAtomicSets(
+            List<BooleanAssignment> atomicSets, AnalysisBudget budget) {
+        return Result.of(
+                atomicSets,
+                List.of(new Problem(
+                        budget.getExhaustion() + ", atomic sets are incomplete", Problem.Severity.WARNING)));
+    }
+
+    private static Result<BooleanAssignment> getPartialCoreAndDead(
+            int[] coreAndDead, int count, AnalysisBudget budget) {
+        return Result.of(
+                new BooleanAssignment(Arrays.copyOf(coreAndDead, count)),
+                List.of(new Problem(
+                        budget.getExhaustion() + ", core and dead features are incomplete",
+                        Problem.Severity.WARNING)));
+    }
+}
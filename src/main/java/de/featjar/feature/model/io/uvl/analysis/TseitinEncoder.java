@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.analysis;
+
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.feature.model.io.uvl.UVLUtils;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.connective.Reference;
+import de.featjar.formula.structure.predicate.False;
+import de.featjar.formula.structure.predicate.Literal;
+import de.featjar.formula.structure.predicate.True;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Transforms formulas into clauses by the Tseitin transformation.
+ * Every conjunction, disjunction, implication and equivalence is replaced by an auxiliary variable,
+ * which is defined to be equivalent to it, so the number of clauses is linear in the size of the formula.
+ * Formulas that already are clauses are added directly.
+ * The unit clause that fixes the auxiliary variable of {@code true} is added with every formula that uses it, so the
+ * clauses of each formula hold on their own, even if the clauses of other formulas are removed.
+ */
+public class TseitinEncoder {
+
+    private static class Frame {
+        private final IExpression expression;
+        private final List<? extends IExpression> children;
+        private final int[] literals;
+        private int next;
+
+        private Frame(IExpression expression) {
+            this.expression = expression;
+            children = expression.getChildren();
+            literals = new int[children.size()];
+        }
+    }
+
+    private final ToIntFunction<String> variables;
+    private final Consumer<int[]> clauses;
+    private final String auxiliaryName;
+    private int auxiliaryCount;
+    private int trueLiteral;
+    private boolean trueLiteralAdded;
+
+    /**
+     * Creates a new encoder.
+     * @param variables Returns the index of a variable by name, adding it if necessary.
+     * @param clauses Consumes the created clauses.
+     * @param auxiliaryName The name that is part of the names of all auxiliary variables.
+     */
+    public TseitinEncoder(ToIntFunction<String> variables, Consumer<int[]> clauses, String auxiliaryName) {
+        this.variables = variables;
+        this.clauses = clauses;
+        this.auxiliaryName = auxiliaryName;
+    }
+
+    /**
+     * Returns the number of auxiliary variables introduced so far.
+     * @return The number of auxiliary variables.
+     */
+    public int getAuxiliaryCount() {
+        return auxiliaryCount;
+    }
+
+    /**
+     * Adds clauses that are satisfiable exactly if the given formula is satisfiable.
+     * Each of their solutions corresponds to exactly one solution of the formula.
+     * @param formula The formula.
+     * @return The problems that occurred, which are not empty if the formula contains unsupported expressions.
+     */
+    public List<Problem> encode(IExpression formula) {
+        formula = unwrap(formula);
+        if (formula instanceof And) {
+            for (IExpression child : formula.getChildren()) {
+                List<Problem> problems = encode(child);
+                if (!problems.isEmpty()) {
+                    return problems;
+                }
+            }
+            return List.of();
+        }
+        int[] clause = toClause(formula);
+        if (clause != null) {
+            clauses.accept(clause);
+            return List.of();
+        }
+        Result<Integer> literal = encodeLiteral(formula);
+        if (literal.isEmpty()) {
+            return literal.getProblems();
+        }
+        clauses.accept(new int[] {literal.get()});
+        return List.of();
+    }
+
+    private Result<Integer> encodeLiteral(IExpression formula) {
+        trueLiteralAdded = false;
+        LinkedList<Frame> stack = new LinkedList<>();
+        int literal = 0;
+        IExpression current = unwrap(formula);
+        while (true) {
+            if (current != null) {
+                if (current instanceof Literal) {
+                    Literal featureLiteral = (Literal) current;
+                    int variable = variables.applyAsInt(featureLiteral.getChildren().get(0).getName());
+                    literal = featureLiteral.isPositive() ? variable : -variable;
+                } else if (current instanceof True) {
+                    literal = getTrueLiteral();
+                } else if (current instanceof False) {
+                    literal = -getTrueLiteral();
+                } else if (current instanceof Not
+                        || current instanceof And
+                        || current instanceof Or
+                        || current instanceof Implies
+                        || current instanceof BiImplies) {
+                    stack.push(new Frame(current));
+                    literal = 0;
+                } else {
+                    return Result.empty(new Problem(
+                            "Cannot transform " + current.getClass().getSimpleName() + " into clauses",
+                            Problem.Severity.ERROR));
+                }
+            }
+            Frame frame = stack.peek();
+            if (literal != 0) {
+                if (frame == null) {
+                    return Result.of(literal);
+                }
+                frame.literals[frame.next++] = literal;
+            }
+            if (frame.next < frame.children.size()) {
+                current = unwrap(frame.children.get(frame.next));
+                continue;
+            }
+            stack.pop();
+            literal = define(frame);
+            current = null;
+        }
+    }
+
+    private int define(Frame frame) {
+        int[] literals = frame.literals;
+        if (frame.expression instanceof Not) {
+            return -literals[0];
+        }
+        int auxiliary = variables.applyAsInt(
+                UVLUtils.getAuxiliaryVariableName(auxiliaryName, auxiliaryCount++));
+        if (frame.expression instanceof And) {
+            defineAnd(auxiliary, literals);
+        } else if (frame.expression instanceof Or) {
+            defineOr(auxiliary, literals);
+        } else if (frame.expression instanceof Implies) {
+            defineOr(auxiliary, new int[] {-literals[0], literals[1]});
+        } else {
+            int x = literals[0];
+            int y = literals[1];
+            clauses.accept(new int[] {-auxiliary, -x, y});
+            clauses.accept(new int[] {-auxiliary, x, -y});
+            clauses.accept(new int[] {auxiliary, x, y});
+            clauses.accept(new int[] {auxiliary, -x, -y});
+        }
+        return auxiliary;
+    }
+
+    private void defineAnd(int auxiliary, int[] literals) {
+        int[] clause = new int[literals.length + 1];
+        clause[0] = auxiliary;
+        for (int i = 0; i < literals.length; i++) {
+            clauses.accept(new int[] {-auxiliary, literals[i]});
+            clause[i + 1] = -literals[i];
+        }
+        clauses.accept(clause);
+    }
+
+    private void defineOr(int auxiliary, int[] literals) {
+        int[] clause = new int[literals.length + 1];
+        clause[0] = -auxiliary;
+        for (int i = 0; i < literals.length; i++) {
+            clauses.accept(new int[] {auxiliary, -literals[i]});
+            clause[i + 1] = literals[i];
+        }
+        clauses.accept(clause);
+    }
+
+    private int getTrueLiteral() {
+        if (trueLiteral == 0) {
+            trueLiteral = variables.applyAsInt(UVLUtils.getAuxiliaryVariableName(auxiliaryName, "true"));
+        }
+        if (!trueLiteralAdded) {
+            clauses.accept(new int[] {trueLiteral});
+            trueLiteralAdded = true;
+        }
+        return trueLiteral;
+    }
+
+    /**
+     * Returns the literals of a formula that is a literal or a disjunction of literals.
+     * @return The clause, or {@code null} if the formula is no clause.
+     */
+    private int[] toClause(IExpression formula) {
+        if (formula instanceof Literal) {
+            return new int[] {toLiteral((Literal) formula)};
+        }
+        if (!(formula instanceof Or)) {
+            return null;
+        }
+        List<? extends IExpression> children = formula.getChildren();
+        int[] clause = new int[children.size()];
+        for (int i = 0; i < clause.length; i++) {
+            IExpression child = unwrap(children.get(i));
+            if (!(child instanceof Literal)) {
+                return null;
+            }
+            clause[i] = toLiteral((Literal) child);
+        }
+        return clause;
+    }
+
+    private int toLiteral(Literal literal) {
+        int variable = variables.applyAsInt(literal.getChildren().get(0).getName());
+        return literal.isPositive() ? variable : -variable;
+    }
+
+    private static IExpression unwrap(IExpression expression) {
+        while (expression instanceof Reference) {
+            expression = expression.getChildren().get(0);
+        }
+        return expression;
+    }
+}
@@ -24,6 +24,8 @@ import de.featjar.base.data.Problem;
 import de.featjar.base.data.Result;
 import de.featjar.base.tree.visitor.ITreeVisitor;
 import de.featjar.feature.model.*;
+import de.featjar.feature.model.io.uvl.GroupEncoding;
+import de.featjar.feature.model.io.uvl.SymbolTable;
 import de.featjar.feature.model.io.uvl.UVLUtils;
 import de.featjar.formula.structure.IFormula;
 import de.featjar.formula.structure.connective.And;
@@ -32,28 +34,59 @@ import de.featjar.formula.structure.connective.Or;
 import de.featjar.formula.structure.predicate.Literal;
 import de.featjar.formula.structure.predicate.True;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Converts a {@link IFeatureTree} to an {@link IFormula}.
+ * As nodes are visited in post-order, the formulas of the children of a node are the topmost entries of an
+ * array-backed stack when the node is visited. They are popped as soon as the node consumes them, so only the
+ * formulas of the current path's pending siblings are held at any time.
+ * Feature names are taken from a {@link SymbolTable}, which can be shared with the parser and later stages.
+ * The definitions of auxiliary variables of group encodings are conjoined with the root's formula, so they hold even
+ * if the parent of their group is deselected.
  *
  * @author Andreas Gerasimow
  */
 public class FeatureTreeToFormulaVisitor implements ITreeVisitor<IFeatureTree, IFormula> {
 
-    private HashMap<IFeatureTree, IFormula> formulas = new HashMap<>();
+    private final GroupEncoding groupEncoding;
+    private final SymbolTable symbols;
+    private IFormula[] formulas = new IFormula[16];
+    private int formulaCount;
     private IFormula rootFormula;
+    private List<IFormula> definitions;
     List<Problem> problems;
 
     public FeatureTreeToFormulaVisitor() {
+        this(GroupEncoding.AUTOMATIC);
+    }
+
+    /**
+     * Creates a new visitor.
+     * @param groupEncoding The encoding used for alternative and cardinality groups.
+     */
+    public FeatureTreeToFormulaVisitor(GroupEncoding groupEncoding) {
+        this(groupEncoding, new SymbolTable());
+    }
+
+    /**
+     * Creates a new visitor.
+     * @param groupEncoding The encoding used for alternative and cardinality groups.
+     * @param symbols The symbol table that stores the names of all features.
+     */
+    public FeatureTreeToFormulaVisitor(GroupEncoding groupEncoding, SymbolTable symbols) {
+        this.groupEncoding = groupEncoding;
+        this.symbols = symbols;
         reset();
     }
 
     @Override
     public void reset() {
-        formulas = new HashMap<>();
+        formulas = new IFormula[16];
+        formulaCount = 0;
         rootFormula = null;
+        definitions = new ArrayList<>();
         problems = new ArrayList<>();
     }
 
@@ -76,45 +109,64 @@ public class FeatureTreeToFormulaVisitor implements ITreeVisitor<IFeatureTree, I
             problems.add(new Problem("Feature has no name"));
             return TraversalAction.FAIL;
         }
+        String name = symbols.canonicalize(featureName.get());
 
         if (node.getGroups().isEmpty()) {
-            problems.add(new Problem(featureName.get() + " has no group."));
+            problems.add(new Problem(name + " has no group."));
             return TraversalAction.FAIL;
         }
 
         FeatureTree.Group group = node.getGroups().get(node.getGroups().size() - 1);
 
+        // the formulas of all children are on top of the stack, in the order of the children
+        List<? extends IFeatureTree> childNodes = node.getChildren();
+        int firstChild = formulaCount - childNodes.size();
+        if (firstChild < 0) {
+            problems.add(new Problem("Missing formulas for children of " + name));
+            return TraversalAction.FAIL;
+        }
+
         IFormula currentFormula;
 
-        if (node.getChildren().isEmpty()) { // is leaf node
+        if (childNodes.isEmpty()) { // is leaf node
             if (node.isOptional() || node.isMandatory()) {
-                currentFormula = new Literal(featureName.get());
+                currentFormula = new Literal(name);
             } else {
-                problems.add(new Problem(featureName.get() + " is neither an optional nor a mandatory feature."));
+                problems.add(new Problem(name + " is neither an optional nor a mandatory feature."));
                 return TraversalAction.FAIL;
             }
         } else { // node has children
             IFormula childrenFormula;
             if (group.isAlternative()) {
-                IFormula[] children = node.getChildren().stream()
-                        .map((child) -> formulas.get(child))
-                        .toArray(IFormula[]::new);
-                childrenFormula = UVLUtils.nchoosek(children, 1, false);
+                IFormula[] children = Arrays.copyOfRange(formulas, firstChild, formulaCount);
+                childrenFormula = UVLUtils.alternative(
+                        children, groupEncoding, UVLUtils.getAuxiliaryName(name), definitions);
             } else if (group.isOr()) {
-                IFormula[] children = node.getChildren().stream()
-                        .map((child) -> formulas.get(child))
-                        .toArray(IFormula[]::new);
-                childrenFormula = new Or(children);
+                childrenFormula = new Or(Arrays.copyOfRange(formulas, firstChild, formulaCount));
             } else if (group.isAnd()) {
-                IFormula[] children = node.getChildren().stream()
-                        .filter(IFeatureTree::isMandatory) // filter mandatory only
-                        .map((child) -> formulas.get(child))
-                        .toArray(IFormula[]::new);
+                List<IFormula> children = new ArrayList<>(childNodes.size());
+                for (int i = 0; i < childNodes.size(); i++) {
+                    if (childNodes.get(i).isMandatory()) { // mandatory only
+                        children.add(formulas[firstChild + i]);
+                    }
+                }
                 childrenFormula = new And(children);
+            } else if (group.isCardinalityGroup()) {
+                IFormula[] children = Arrays.copyOfRange(formulas, firstChild, formulaCount);
+                childrenFormula = UVLUtils.between(
+                        children,
+                        group.getLowerBound(),
+                        group.getUpperBound(),
+                        groupEncoding,
+                        UVLUtils.getAuxiliaryName(name),
+                        definitions);
             } else {
-                problems.add(new Problem(featureName.get() + " has no group."));
+                problems.add(new Problem(name + " has no group."));
                 return TraversalAction.FAIL;
             }
+            // release the children's formulas, which are now referenced by the parent's formula only
+            Arrays.fill(formulas, firstChild, formulaCount, null);
+            formulaCount = firstChild;
 
             if (path.size() == 1) {
                 if (childrenFormula.getChildren().isEmpty()) {
@@ -123,18 +175,29 @@ public class FeatureTreeToFormulaVisitor implements ITreeVisitor<IFeatureTree, I
                     currentFormula = childrenFormula;
                 }
             } else if (childrenFormula.getChildren().isEmpty()) {
-                currentFormula = new Literal(featureName.get());
+                currentFormula = new Literal(name);
             } else if (node.isOptional()) {
-                currentFormula = new Implies(new Literal(featureName.get()), childrenFormula);
+                currentFormula = new Implies(new Literal(name), childrenFormula);
             } else if (node.isMandatory()) {
-                currentFormula = new And(new Literal(featureName.get()), childrenFormula);
+                currentFormula = new And(new Literal(name), childrenFormula);
             } else {
-                problems.add(new Problem(featureName.get() + " is neither an optional nor a mandatory feature."));
+                problems.add(new Problem(name + " is neither an optional nor a mandatory feature."));
                 return TraversalAction.FAIL;
             }
         }
 
-        formulas.put(node, currentFormula);
+        if (path.size() == 1 && !definitions.isEmpty()) {
+            List<IFormula> conjuncts = new ArrayList<>(definitions.size() + 1);
+            conjuncts.add(currentFormula);
+            conjuncts.addAll(definitions);
+            definitions.clear();
+            currentFormula = new And(conjuncts);
+        }
+
+        if (formulaCount == formulas.length) {
+            formulas = Arrays.copyOf(formulas, formulaCount * 2);
+        }
+        formulas[formulaCount++] = currentFormula;
         rootFormula = currentFormula;
 
         return TraversalAction.CONTINUE;
@@ -26,6 +26,7 @@ import static de.vill.model.FeatureType.STRING;
 import de.featjar.base.data.Problem;
 import de.featjar.base.data.Result;
 import de.featjar.base.io.format.ParseException;
+import de.featjar.base.tree.Trees;
 import de.featjar.base.tree.visitor.ITreeVisitor;
 import de.featjar.feature.model.Attributes;
 import de.featjar.feature.model.FeatureTree;
@@ -35,17 +36,34 @@ import de.vill.model.Attribute;
 import de.vill.model.FeatureModel;
 import de.vill.model.Group;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * Converts a {@link IFeatureTree} to a {@link de.vill.model.FeatureModel}.
+ * Besides the sequential traversal, {@link #convert(IFeatureTree, ForkJoinPool)} converts independent subtrees of
+ * large feature trees concurrently.
  *
  * @author Andreas Gerasimow
  */
 public class FeatureTreeToUVLFeatureModelVisitor implements ITreeVisitor<IFeatureTree, de.vill.model.FeatureModel> {
 
+    /**
+     * The minimum number of features in a tree for which subtrees are converted concurrently.
+     * Subtrees with fewer features are converted sequentially and batched into tasks of about this size.
+     */
+    public static final int PARALLEL_THRESHOLD = 1024;
+
     private de.vill.model.FeatureModel uvlModel;
+    private Map<IFeatureTree, de.vill.model.Feature> convertedFeatures;
     private List<Problem> problemList;
 
     public FeatureTreeToUVLFeatureModelVisitor() {
@@ -55,6 +73,7 @@ public class FeatureTreeToUVLFeatureModelVisitor implements ITreeVisitor<IFeatur
     @Override
     public void reset() {
         uvlModel = new de.vill.model.FeatureModel();
+        convertedFeatures = new IdentityHashMap<>();
         problemList = new ArrayList<>();
     }
 
@@ -66,7 +85,162 @@ public class FeatureTreeToUVLFeatureModelVisitor implements ITreeVisitor<IFeatur
     @Override
     public TraversalAction lastVisit(List<IFeatureTree> path) {
         final IFeatureTree node = ITreeVisitor.getCurrentNode(path);
+        de.vill.model.Feature uvlFeature =
+                convertFeature(node, convertedFeatures, uvlModel.getFeatureMap(), problemList);
+        if (uvlFeature == null) {
+            return TraversalAction.FAIL;
+        }
+        convertedFeatures.put(node, uvlFeature);
+        if (node.getParent().isEmpty()) {
+            uvlModel.setRootFeature(uvlFeature);
+        }
+        return TraversalAction.CONTINUE;
+    }
+
+    /**
+     * Converts the given feature tree using the common fork-join pool.
+     * @param root the root of the feature tree
+     * @return the UVL feature model
+     */
+    public Result<FeatureModel> convert(IFeatureTree root) {
+        return convert(root, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Converts the given feature tree.
+     * If it has at least {@link #PARALLEL_THRESHOLD} features, it is split into independent subtrees, which are
+     * converted concurrently by the given pool, and the remaining features above them are converted afterwards.
+     * Otherwise, the tree is traversed sequentially.
+     * @param root the root of the feature tree
+     * @param pool the pool that converts the subtrees
+     * @return the UVL feature model
+     */
+    public Result<FeatureModel> convert(IFeatureTree root, ForkJoinPool pool) {
+        final Map<IFeatureTree, Integer> sizes = computeSizes(root);
+        if (sizes.get(root) < PARALLEL_THRESHOLD) {
+            return Trees.traverse(root, this);
+        }
+        reset();
+
+        // split the tree into maximal subtrees below the threshold and the nodes above them
+        final List<IFeatureTree> upperNodes = new ArrayList<>();
+        final List<Callable<Map<IFeatureTree, de.vill.model.Feature>>> tasks = new ArrayList<>();
+        final Map<String, de.vill.model.Feature> featureMap = new ConcurrentHashMap<>();
+        final List<Problem> problems = Collections.synchronizedList(new ArrayList<>());
+        List<IFeatureTree> batch = new ArrayList<>();
+        int batchSize = 0;
+        final LinkedList<IFeatureTree> stack = new LinkedList<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            final IFeatureTree node = stack.pop();
+            final int size = sizes.get(node);
+            if (size >= PARALLEL_THRESHOLD) {
+                upperNodes.add(node);
+                for (IFeatureTree child : node.getChildren()) {
+                    stack.push(child);
+                }
+                continue;
+            }
+            batch.add(node);
+            batchSize += size;
+            if (batchSize >= PARALLEL_THRESHOLD) {
+                tasks.add(createTask(batch, featureMap, problems));
+                batch = new ArrayList<>();
+                batchSize = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            tasks.add(createTask(batch, featureMap, problems));
+        }
+
+        for (Future<Map<IFeatureTree, de.vill.model.Feature>> future : pool.invokeAll(tasks)) {
+            try {
+                Map<IFeatureTree, de.vill.model.Feature> subtreeRoots = future.get();
+                if (subtreeRoots == null) {
+                    problemList.addAll(problems);
+                    return Result.empty(problemList);
+                }
+                convertedFeatures.putAll(subtreeRoots);
+            } catch (ExecutionException e) {
+                problemList.addAll(problems);
+                problemList.add(new Problem(e.getCause() instanceof Exception ? (Exception) e.getCause() : e));
+                return Result.empty(problemList);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                problemList.add(new Problem(e));
+                return Result.empty(problemList);
+            }
+        }
+        problemList.addAll(problems);
+
+        // every upper node precedes its descendants, so converting in reverse order converts children first
+        for (int i = upperNodes.size() - 1; i >= 0; i--) {
+            final IFeatureTree node = upperNodes.get(i);
+            de.vill.model.Feature uvlFeature = convertFeature(node, convertedFeatures, featureMap, problemList);
+            if (uvlFeature == null) {
+                return Result.empty(problemList);
+            }
+            convertedFeatures.put(node, uvlFeature);
+        }
+        if (root.getParent().isEmpty()) {
+            uvlModel.setRootFeature(convertedFeatures.get(root));
+        }
+        uvlModel.getFeatureMap().putAll(featureMap);
+        return Result.of(uvlModel, problemList);
+    }
+
+    private static Callable<Map<IFeatureTree, de.vill.model.Feature>> createTask(
+            List<IFeatureTree> subtrees, Map<String, de.vill.model.Feature> featureMap, List<Problem> problems) {
+        return () -> {
+            final Map<IFeatureTree, de.vill.model.Feature> subtreeRoots = new IdentityHashMap<>();
+            for (IFeatureTree subtree : subtrees) {
+                final FeatureTreeToUVLFeatureModelVisitor visitor = new FeatureTreeToUVLFeatureModelVisitor();
+                final Result<FeatureModel> result = Trees.traverse(subtree, visitor);
+                problems.addAll(result.getProblems());
+                final de.vill.model.Feature subtreeRoot = visitor.convertedFeatures.get(subtree);
+                if (result.isEmpty() || subtreeRoot == null) {
+                    return null;
+                }
+                featureMap.putAll(result.get().getFeatureMap());
+                subtreeRoots.put(subtree, subtreeRoot);
+            }
+            return subtreeRoots;
+        };
+    }
 
+    private static Map<IFeatureTree, Integer> computeSizes(IFeatureTree root) {
+        final List<IFeatureTree> preOrder = new ArrayList<>();
+        final LinkedList<IFeatureTree> stack = new LinkedList<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            final IFeatureTree node = stack.pop();
+            preOrder.add(node);
+            for (IFeatureTree child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+        final Map<IFeatureTree, Integer> sizes = new IdentityHashMap<>(preOrder.size());
+        for (int i = preOrder.size() - 1; i >= 0; i--) {
+            final IFeatureTree node = preOrder.get(i);
+            int size = 1;
+            for (IFeatureTree child : node.getChildren()) {
+                size += sizes.get(child);
+            }
+            sizes.put(node, size);
+        }
+        return sizes;
+    }
+
+    /**
+     * Converts a single feature, whose children must already be contained in the converted features.
+     * The children are removed from the converted features, the new feature is added to the feature map.
+     * @return the UVL feature, or {@code null} if the feature cannot be converted
+     */
+    private de.vill.model.Feature convertFeature(
+            IFeatureTree node,
+            Map<IFeatureTree, de.vill.model.Feature> converted,
+            Map<String, de.vill.model.Feature> featureMap,
+            List<Problem> problems) {
         try {
             String[] namespaceAndName = getUVLNamespaceAndName(node.getFeature());
             String name;
@@ -77,9 +251,8 @@ public class FeatureTreeToUVLFeatureModelVisitor implements ITreeVisitor<IFeatur
                 namespace = namespaceAndName[0];
                 name = namespaceAndName[1];
             } else {
-                problemList.add(
-                        new Problem("Feature " + node.getFeature().getName().get() + " has an illegal name."));
-                return TraversalAction.FAIL;
+                problems.add(new Problem("Feature " + node.getFeature().getName().get() + " has an illegal name."));
+                return null;
             }
 
             de.vill.model.Feature uvlFeature = new de.vill.model.Feature(name);
@@ -93,18 +266,16 @@ public class FeatureTreeToUVLFeatureModelVisitor implements ITreeVisitor<IFeatur
             try {
                 uvlFeature.setFeatureType(getUVLFeatureType(node.getFeature()));
             } catch (ParseException e) {
-                problemList.add(new Problem(
+                problems.add(new Problem(
                         "Type of feature " + node.getFeature().getName().get() + " cannot be parsed."));
-                return TraversalAction.FAIL;
+                return null;
             }
 
-            node.getFeature().getAttributes().orElseThrow().entrySet().stream()
-                    .filter((entry) -> !entry.getKey().equals(Attributes.ABSTRACT))
-                    .forEach(entry -> uvlFeature
-                            .getAttributes()
-                            .put(
-                                    entry.getKey().getName(),
-                                    new Attribute<>(entry.getKey().getName(), entry.getValue())));
+            node.getFeature().getAttributes().orElseThrow().forEach((key, value) -> {
+                if (!key.equals(Attributes.ABSTRACT)) {
+                    uvlFeature.getAttributes().put(key.getName(), new Attribute<>(key.getName(), value));
+                }
+            });
 
             List<FeatureTree.Group> groups = node.getGroups();
 
@@ -118,20 +289,25 @@ public class FeatureTreeToUVLFeatureModelVisitor implements ITreeVisitor<IFeatur
                 Group.GroupType groupType = getUVLGroupType(group);
 
                 if (groupType == null) {
-                    List<IFeatureTree> mandatoryChildren =
-                            children.stream().filter(IFeatureTree::isMandatory).collect(Collectors.toList());
-                    List<IFeatureTree> optionalChildren =
-                            children.stream().filter(IFeatureTree::isOptional).collect(Collectors.toList());
+                    List<de.vill.model.Feature> mandatoryChildren = new ArrayList<>();
+                    List<de.vill.model.Feature> optionalChildren = new ArrayList<>();
+                    for (IFeatureTree child : children) {
+                        if (child.isMandatory()) {
+                            mandatoryChildren.add(getUVLChildFeature(child, converted));
+                        } else if (child.isOptional()) {
+                            optionalChildren.add(getUVLChildFeature(child, converted));
+                        }
+                    }
                     if (!mandatoryChildren.isEmpty()) {
                         de.vill.model.Group mandatoryGroup = new de.vill.model.Group(Group.GroupType.MANDATORY);
                         mandatoryGroup.setParentFeature(uvlFeature);
-                        mandatoryGroup.getFeatures().addAll(getUVLChildrenFeatures(mandatoryChildren));
+                        mandatoryGroup.getFeatures().addAll(mandatoryChildren);
                         uvlFeature.addChildren(mandatoryGroup);
                     }
                     if (!optionalChildren.isEmpty()) {
                         de.vill.model.Group optionalGroup = new de.vill.model.Group(Group.GroupType.OPTIONAL);
                         optionalGroup.setParentFeature(uvlFeature);
-                        optionalGroup.getFeatures().addAll(getUVLChildrenFeatures(optionalChildren));
+                        optionalGroup.getFeatures().addAll(optionalChildren);
                         uvlFeature.addChildren(optionalGroup);
                     }
                 } else {
@@ -139,32 +315,29 @@ public class FeatureTreeToUVLFeatureModelVisitor implements ITreeVisitor<IFeatur
                     uvlGroup.setParentFeature(uvlFeature);
                     uvlGroup.setLowerBound(String.valueOf(group.getLowerBound()));
                     uvlGroup.setUpperBound(String.valueOf(group.getUpperBound()));
-                    uvlGroup.getFeatures().addAll(getUVLChildrenFeatures(children));
+                    for (IFeatureTree child : children) {
+                        uvlGroup.getFeatures().add(getUVLChildFeature(child, converted));
+                    }
                     uvlFeature.addChildren(uvlGroup);
                 }
             }
 
-            uvlModel.getFeatureMap().put(name, uvlFeature);
-            if (node.getParent().isEmpty()) {
-                uvlModel.setRootFeature(uvlFeature);
-            }
+            featureMap.put(name, uvlFeature);
+            return uvlFeature;
         } catch (Exception e) {
-            problemList.add(new Problem(e.getMessage()));
-            return TraversalAction.FAIL;
+            problems.add(new Problem(e.getMessage()));
+            return null;
         }
-
-        return TraversalAction.CONTINUE;
     }
 
-    private List<de.vill.model.Feature> getUVLChildrenFeatures(List<? extends IFeatureTree> features) throws Exception {
-        List<de.vill.model.Feature> children = new ArrayList<>();
-        for (IFeatureTree feature : features) {
-            if (feature.getFeature().getName().isEmpty()) throw new Exception("Feature has no name.");
-            de.vill.model.Feature uvlFeature =
-                    uvlModel.getFeatureMap().get(feature.getFeature().getName().get());
-            children.add(uvlFeature);
+    private de.vill.model.Feature getUVLChildFeature(
+            IFeatureTree child, Map<IFeatureTree, de.vill.model.Feature> converted) throws Exception {
+        de.vill.model.Feature uvlFeature = converted.remove(child);
+        if (uvlFeature == null) {
+            if (child.getFeature().getName().isEmpty()) throw new Exception("Feature has no name.");
+            throw new Exception("Feature " + child.getFeature().getName().get() + " has not been converted.");
         }
-        return children;
+        return uvlFeature;
     }
 
     private String[] getUVLNamespaceAndName(IFeature feature) throws Exception {
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io.uvl.visitor;
+
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.feature.model.io.uvl.SymbolTable;
+import de.featjar.feature.model.io.uvl.UVLUtils;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.predicate.Literal;
+import de.vill.model.constraint.*;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Converts a {@link de.vill.model.constraint.Constraint} to an {@link IFormula}.
+ * This is the inverse of {@link FormulaToUVLConstraintVisitor}.
+ * The constraint tree is traversed without recursion and without printing and re-parsing the constraint.
+ * Chains of conjunctions and disjunctions are converted to right-nested binary formulas, just like the
+ * textual {@link de.featjar.formula.io.textual.ExpressionParser} does.
+ * Literal names are replaced by their instances in a {@link SymbolTable}, so they share memory with the feature names.
+ * Constraint types that have no direct counterpart (e.g., equations over attributes) are converted using the
+ * textual parser instead.
+ */
+public class UVLConstraintToFormulaVisitor {
+
+    private static class Frame {
+        private final Constraint constraint;
+        private final List<Constraint> operands;
+        private final List<IFormula> formulas;
+        private int next;
+
+        private Frame(Constraint constraint, List<Constraint> operands) {
+            this.constraint = constraint;
+            this.operands = operands;
+            formulas = new ArrayList<>(operands.size());
+        }
+    }
+
+    private final SymbolTable symbols;
+    private IFormula rootFormula;
+    private List<Problem> problems;
+
+    public UVLConstraintToFormulaVisitor() {
+        this(new SymbolTable());
+    }
+
+    /**
+     * Creates a new visitor.
+     * @param symbols The symbol table that stores the names of all variables.
+     */
+    public UVLConstraintToFormulaVisitor(SymbolTable symbols) {
+        this.symbols = symbols;
+        reset();
+    }
+
+    public void reset() {
+        rootFormula = null;
+        problems = new ArrayList<>();
+    }
+
+    public Result<IFormula> getResult() {
+        if (rootFormula == null) {
+            return Result.empty(problems);
+        }
+        return Result.of(rootFormula, problems);
+    }
+
+    /**
+     * Converts the given constraint. The result can be retrieved with {@link #getResult()}.
+     * @param constraint The UVL constraint to convert.
+     * @return The converted formula with all problems that occurred during conversion.
+     */
+    public Result<IFormula> visit(Constraint constraint) {
+        reset();
+        LinkedList<Frame> frameStack = new LinkedList<>();
+        frameStack.push(createFrame(constraint));
+
+        while (!frameStack.isEmpty()) {
+            Frame frame = frameStack.peek();
+            if (frame.next < frame.operands.size()) {
+                frameStack.push(createFrame(frame.operands.get(frame.next++)));
+            } else {
+                frameStack.pop();
+                IFormula formula = createFormula(frame);
+                if (formula == null) {
+                    return getResult();
+                }
+                if (frameStack.isEmpty()) {
+                    rootFormula = formula;
+                } else {
+                    frameStack.peek().formulas.add(formula);
+                }
+            }
+        }
+        return getResult();
+    }
+
+    private Frame createFrame(Constraint constraint) {
+        if (constraint instanceof AndConstraint) {
+            return new Frame(constraint, flatten(constraint, AndConstraint.class));
+        } else if (constraint instanceof OrConstraint) {
+            return new Frame(constraint, flatten(constraint, OrConstraint.class));
+        } else if (constraint instanceof ImplicationConstraint) {
+            ImplicationConstraint implication = (ImplicationConstraint) constraint;
+            return new Frame(constraint, List.of(implication.getLeft(), implication.getRight()));
+        } else if (constraint instanceof EquivalenceConstraint) {
+            EquivalenceConstraint equivalence = (EquivalenceConstraint) constraint;
+            return new Frame(constraint, List.of(equivalence.getLeft(), equivalence.getRight()));
+        } else if (constraint instanceof NotConstraint) {
+            return new Frame(constraint, List.of(((NotConstraint) constraint).getContent()));
+        } else if (constraint instanceof ParenthesisConstraint) {
+            return new Frame(constraint, List.of(((ParenthesisConstraint) constraint).getContent()));
+        } else {
+            return new Frame(constraint, List.of());
+        }
+    }
+
+    private List<Constraint> flatten(Constraint constraint, Class<? extends Constraint> type) {
+        List<Constraint> operands = new ArrayList<>();
+        LinkedList<Constraint> constraintStack = new LinkedList<>();
+        constraintStack.push(constraint);
+        while (!constraintStack.isEmpty()) {
+            Constraint current = constraintStack.pop();
+            if (current instanceof AndConstraint && type == AndConstraint.class) {
+                constraintStack.push(((AndConstraint) current).getRight());
+                constraintStack.push(((AndConstraint) current).getLeft());
+            } else if (current instanceof OrConstraint && type == OrConstraint.class) {
+                constraintStack.push(((OrConstraint) current).getRight());
+                constraintStack.push(((OrConstraint) current).getLeft());
+            } else {
+                operands.add(current);
+            }
+        }
+        return operands;
+    }
+
+    private IFormula createFormula(Frame frame) {
+        Constraint constraint = frame.constraint;
+        List<IFormula> formulas = frame.formulas;
+        if (constraint instanceof AndConstraint) {
+            IFormula formula = formulas.get(formulas.size() - 1);
+            for (int i = formulas.size() - 2; i >= 0; i--) {
+                formula = new And(formulas.get(i), formula);
+            }
+            return formula;
+        } else if (constraint instanceof OrConstraint) {
+            IFormula formula = formulas.get(formulas.size() - 1);
+            for (int i = formulas.size() - 2; i >= 0; i--) {
+                formula = new Or(formulas.get(i), formula);
+            }
+            return formula;
+        } else if (constraint instanceof ImplicationConstraint) {
+            return new Implies(formulas.get(0), formulas.get(1));
+        } else if (constraint instanceof EquivalenceConstraint) {
+            return new BiImplies(formulas.get(0), formulas.get(1));
+        } else if (constraint instanceof NotConstraint) {
+            return new Not(formulas.get(0));
+        } else if (constraint instanceof ParenthesisConstraint) {
+            return formulas.get(0);
+        } else if (constraint instanceof LiteralConstraint) {
+            return new Literal(symbols.canonicalize(((LiteralConstraint) constraint).getLiteral()));
+        } else {
+            return parseConstraint(constraint);
+        }
+    }
+
+    private IFormula parseConstraint(Constraint constraint) {
+        try {
+            Result<IExpression> parse = UVLUtils.getExpressionParser().parse(constraint.toString(false, ""));
+            problems.addAll(parse.getProblems());
+            if (parse.isEmpty()) {
+                return null;
+            }
+            if (!(parse.get() instanceof IFormula)) {
+                problems.add(new Problem("Constraint " + constraint.toString(false, "") + " is not a formula."));
+                return null;
+            }
+            return (IFormula) parse.get();
+        } catch (ClassNotFoundException e) {
+            problems.add(new Problem(e));
+            return null;
+        }
+    }
+}
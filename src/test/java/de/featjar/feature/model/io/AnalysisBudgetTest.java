@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisBudget;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisReport;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisScheduler;
+import de.featjar.feature.model.io.uvl.analysis.ClauseListPipeline;
+import de.featjar.feature.model.io.uvl.analysis.ConstraintEncoding;
+import de.featjar.feature.model.io.uvl.analysis.SolutionEnumerator;
+import de.featjar.feature.model.io.uvl.analysis.SolverSession;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanClauseList;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AnalysisBudgetTest {
+
+    @Test
+    void testCancelledEnumerationKeepsSolutions() {
+        AnalysisBudget budget = AnalysisBudget.unlimited().start();
+        SolutionEnumerator enumerator = new SolutionEnumerator(loadClauseList(), Long.MAX_VALUE, budget);
+        for (int i = 0; i < 5; i++) {
+            enumerator.next();
+        }
+        budget.cancel();
+        Assertions.assertFalse(enumerator.hasNext());
+        Assertions.assertEquals(5, enumerator.getCount());
+        Assertions.assertTrue(enumerator.isTimedOut());
+        Assertions.assertFalse(enumerator.isComplete());
+    }
+
+    @Test
+    void testExhaustedCoreAndDeadIsPartial() {
+        SolverSession session = new SolverSession(loadClauseList());
+        BooleanAssignment complete = session.computeCoreAndDead().get();
+
+        AnalysisBudget budget = new AnalysisBudget(0, 0).start();
+        budget.cancel();
+        int[] variables = new int[session.getVariableCount()];
+        for (int i = 0; i < variables.length; i++) {
+            variables[i] = i + 1;
+        }
+        Result<BooleanAssignment> partial = session.computeCoreAndDead(new int[0], variables, budget);
+        Assertions.assertTrue(partial.isPresent());
+        Assertions.assertFalse(partial.getProblems().isEmpty());
+        Assertions.assertTrue(partial.get().size() < complete.size());
+    }
+
+    @Test
+    void testSchedulerAbandonsUncooperativeAnalysis() {
+        AnalysisReport report = new AnalysisReport(loadClauseList().getVariableMap());
+        long start = System.currentTimeMillis();
+        List<Problem> problems = new AnalysisScheduler(1)
+                .setBudget(100, 0)
+                .add(
+                        "sleep",
+                        () -> {
+                            Thread.sleep(60_000);
+                            return Boolean.TRUE;
+                        },
+                        result -> Assertions.fail())
+                .add("partial", null, budget -> {
+                    while (!budget.isExhausted()) {
+                        Thread.sleep(10);
+                    }
+                    return Boolean.TRUE;
+                }, result -> {})
+                .run(report);
+        Assertions.assertTrue(System.currentTimeMillis() - start < 30_000);
+        Assertions.assertEquals(2, problems.size());
+        Assertions.assertEquals(List.of("partial"), report.getPartialAnalyses());
+    }
+
+    private static BooleanClauseList loadClauseList() {
+        IFeatureModel featureModel = IO.load(Paths.get("src/test/resources/uvl/gpl.uvl"), new UVLFeatureModelFormat())
+                .get();
+        return new ClauseListPipeline(featureModel, ConstraintEncoding.DISTRIBUTIVE).getClauseList();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisMetrics;
+import de.featjar.feature.model.io.uvl.analysis.ClauseListPipeline;
+import de.featjar.feature.model.io.uvl.analysis.ConstraintEncoding;
+import de.featjar.feature.model.io.uvl.analysis.SolverSession;
+import java.nio.file.Paths;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AnalysisMetricsTest {
+
+    @Test
+    void testStageAndSolverMetrics() {
+        IFeatureModel featureModel = IO.load(Paths.get("src/test/resources/uvl/gpl.uvl"), new UVLFeatureModelFormat())
+                .get();
+        ClauseListPipeline pipeline = new ClauseListPipeline(featureModel, ConstraintEncoding.DISTRIBUTIVE);
+        SolverSession session = new SolverSession(pipeline.getClauseList());
+        Assertions.assertTrue(
+                pipeline.getMetrics().getMeasurements().containsKey(ClauseListPipeline.DIRECT));
+
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        metrics.putAll(pipeline.getMetrics());
+        AnalysisMetrics.Probe probe = metrics.start("core", session.getSolver());
+        session.computeCoreAndDead().get();
+        probe.stop();
+
+        Map<String, Number> core = metrics.getMeasurements().get("core");
+        Assertions.assertTrue(core.get(AnalysisMetrics.WALL_NANOS).longValue() > 0);
+        Assertions.assertTrue(core.get(AnalysisMetrics.PROPAGATIONS).longValue() > 0);
+        Assertions.assertTrue(metrics.toMap().containsKey(ClauseListPipeline.DIRECT + "." + AnalysisMetrics.WALL_NANOS));
+        Assertions.assertTrue(metrics.toMap().containsKey("core." + AnalysisMetrics.DECISIONS));
+    }
+}
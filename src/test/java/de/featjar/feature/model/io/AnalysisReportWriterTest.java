@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.feature.model.io.uvl.UVLUtils;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisMetrics;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisReport;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisReportWriter;
+import de.featjar.feature.model.io.uvl.analysis.ClauseListPipeline;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignment;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AnalysisReportWriterTest {
+
+    @Test
+    void testWriteJSON() throws IOException {
+        String json = write(AnalysisReportWriter.Format.JSON);
+        Assertions.assertTrue(json.startsWith("{\"satisfiable\":true,\"core\":[\"Root\"],\"dead\":[\"Dead \\\"A,B\\\"\"]"));
+        Assertions.assertTrue(json.contains("\"solutionCount\":42"));
+        Assertions.assertTrue(json.contains("\"analysisNanos\":{\"core\":1000}"));
+        Assertions.assertFalse(json.contains("__aux_"));
+    }
+
+    @Test
+    void testWriteCSV() throws IOException {
+        String csv = write(AnalysisReportWriter.Format.CSV);
+        List<String> rows = List.of(csv.split("\n"));
+        Assertions.assertEquals("section,key,value", rows.get(0));
+        Assertions.assertTrue(rows.contains("core,,Root"));
+        Assertions.assertTrue(rows.contains("dead,,\"Dead \"\"A,B\"\"\""));
+        Assertions.assertTrue(rows.contains("count,solutions,42"));
+        Assertions.assertTrue(rows.contains("analysis-nanos,core,1000"));
+        Assertions.assertTrue(rows.contains("stage-nanos,direct,2000"));
+        Assertions.assertTrue(rows.contains("partial,core,true"));
+        Assertions.assertFalse(csv.contains("__aux_"));
+    }
+
+    private static String write(AnalysisReportWriter.Format format) throws IOException {
+        VariableMap variables =
+                new VariableMap(List.of("Root", "Dead \"A,B\"", UVLUtils.getAuxiliaryVariableName("tseitin", 0)));
+        AnalysisReport report = new AnalysisReport(variables);
+        report.setSatisfiable(true);
+        report.setCoreAndDeadFeatures(new BooleanAssignment(1, -2, 3));
+        report.setSolutionCount(BigInteger.valueOf(42));
+        report.getMetrics().put("core", Map.of(AnalysisMetrics.WALL_NANOS, 1000L));
+        report.addAnalysis("core");
+        report.getMetrics().put(ClauseListPipeline.DIRECT, Map.of(AnalysisMetrics.WALL_NANOS, 2000L));
+        report.addStage(ClauseListPipeline.DIRECT);
+        report.addPartialAnalysis("core");
+        StringWriter writer = new StringWriter();
+        new AnalysisReportWriter(writer, format).write(report);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.io.uvl.BinaryFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BinaryFeatureModelFormatTest {
+
+    @Test
+    void testRoundTrip() throws IOException {
+        UVLFeatureModelFormat uvlFormat = new UVLFeatureModelFormat();
+        IFeatureModel featureModel =
+                IO.load(Paths.get("src/test/resources/uvl/gpl.uvl"), uvlFormat).get();
+
+        BinaryFeatureModelFormat binaryFormat = new BinaryFeatureModelFormat();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assertions.assertTrue(binaryFormat.write(featureModel, out).isEmpty());
+        IFeatureModel reloaded =
+                binaryFormat.parse(new ByteArrayInputStream(out.toByteArray())).get();
+
+        Assertions.assertEquals(
+                uvlFormat.serialize(featureModel).get(),
+                uvlFormat.serialize(reloaded).get());
+        Assertions.assertTrue(out.size() < Files.size(Paths.get("src/test/resources/uvl/gpl.uvl")));
+    }
+
+    @Test
+    void testFeatureCardinalities() throws IOException {
+        FeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree rootTree =
+                featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("root"));
+        rootTree.mutate().setAnd();
+        IFeatureTree bounded = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("Bounded"));
+        bounded.mutate().setFeatureRange(Range.of(0, 3));
+        IFeatureTree unbounded = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("Unbounded"));
+        unbounded.mutate().setFeatureRange(Range.atLeast(2));
+        IFeatureTree mandatory = bounded.mutate().addFeatureBelow(featureModel.mutate().addFeature("Mandatory"));
+        mandatory.mutate().setMandatory();
+        bounded.mutate().addFeatureBelow(featureModel.mutate().addFeature("Optional"));
+
+        BinaryFeatureModelFormat binaryFormat = new BinaryFeatureModelFormat();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assertions.assertTrue(binaryFormat.write(featureModel, out).isEmpty());
+        IFeatureModel reloaded =
+                binaryFormat.parse(new ByteArrayInputStream(out.toByteArray())).get();
+
+        List<IFeatureTree> expected = preOrder(featureModel.getRoots().get(0));
+        List<IFeatureTree> actual = preOrder(reloaded.getRoots().get(0));
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            String name = expected.get(i).getFeature().getName().get();
+            Assertions.assertEquals(name, actual.get(i).getFeature().getName().get());
+            Assertions.assertEquals(
+                    expected.get(i).getFeatureCardinalityLowerBound(),
+                    actual.get(i).getFeatureCardinalityLowerBound(),
+                    name);
+            Assertions.assertEquals(
+                    expected.get(i).getFeatureCardinalityUpperBound(),
+                    actual.get(i).getFeatureCardinalityUpperBound(),
+                    name);
+        }
+    }
+
+    @Test
+    void testStreamIsNotReadBeyondFeatureModel() throws IOException {
+        IFeatureModel featureModel = createSingleFeatureModel();
+        BinaryFeatureModelFormat binaryFormat = new BinaryFeatureModelFormat();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assertions.assertTrue(binaryFormat.write(featureModel, out).isEmpty());
+        out.write(42);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        Assertions.assertTrue(binaryFormat.parse(in).isPresent());
+        Assertions.assertEquals(42, in.read());
+    }
+
+    @Test
+    void testUnknownFeatureType() throws IOException {
+        IFeatureModel featureModel = createSingleFeatureModel();
+        BinaryFeatureModelFormat binaryFormat = new BinaryFeatureModelFormat();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assertions.assertTrue(binaryFormat.write(featureModel, out).isEmpty());
+
+        // magic, version, name count, name "root", root count and name index precede the flags of the root
+        byte[] bytes = out.toByteArray();
+        int flagsIndex = 4 + 4 + 1 + (2 + "root".length()) + 1 + 1;
+        Assertions.assertEquals(0, bytes[flagsIndex]);
+        bytes[flagsIndex] = (byte) (15 << 1);
+
+        Result<IFeatureModel> reloaded = binaryFormat.parse(new ByteArrayInputStream(bytes));
+        Assertions.assertTrue(reloaded.isEmpty());
+        Assertions.assertFalse(reloaded.getProblems().isEmpty());
+    }
+
+    private static IFeatureModel createSingleFeatureModel() {
+        FeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("root"));
+        return featureModel;
+    }
+
+    private static List<IFeatureTree> preOrder(IFeatureTree root) {
+        List<IFeatureTree> nodes = new ArrayList<>();
+        LinkedList<IFeatureTree> stack = new LinkedList<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            IFeatureTree node = stack.pop();
+            nodes.add(node);
+            List<? extends IFeatureTree> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+        return nodes;
+    }
+}
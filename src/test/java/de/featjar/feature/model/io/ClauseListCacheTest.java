@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.feature.model.io.uvl.analysis.ClauseListCache;
+import de.featjar.formula.assignment.BooleanClauseList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ClauseListCacheTest {
+
+    private static final Path GPL = Paths.get("src/test/resources/uvl/gpl.uvl");
+
+    @Test
+    void testHit(@TempDir Path directory) {
+        ClauseListCache cache = new ClauseListCache(directory, Long.MAX_VALUE);
+        BooleanClauseList computed = cache.getClauseList(GPL).get();
+        BooleanClauseList cached = cache.getClauseList(GPL).get();
+
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(computed.size(), cached.size());
+        Assertions.assertEquals(
+                computed.toAssignmentList().get(0).get().size(),
+                cached.toAssignmentList().get(0).get().size());
+        Assertions.assertEquals(
+                computed.getVariableMap().get(1).get(),
+                cached.getVariableMap().get(1).get());
+    }
+
+    @Test
+    void testEviction(@TempDir Path directory) throws IOException {
+        ClauseListCache cache = new ClauseListCache(directory, 1);
+        cache.getClauseList(GPL).get();
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.analysis.sat4j.computation.ComputeSolutionCountSAT4J;
+import de.featjar.base.computation.Computations;
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.analysis.ClauseListPipeline;
+import de.featjar.feature.model.io.uvl.analysis.DDNNF;
+import de.featjar.feature.model.io.uvl.analysis.DDNNFCompiler;
+import de.featjar.feature.model.io.uvl.analysis.SolverSession;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.assignment.BooleanSolution;
+import java.math.BigInteger;
+import java.nio.file.Paths;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DDNNFTest {
+
+    @Test
+    void testCountMatchesSAT4J() {
+        IFeatureModel featureModel = IO.load(Paths.get("src/test/resources/uvl/gpl.uvl"), new UVLFeatureModelFormat())
+                .get();
+        BooleanClauseList clauseList = new ClauseListPipeline(featureModel).getClauseList();
+        DDNNF ddnnf = new DDNNFCompiler(clauseList).compile().get();
+
+        BigInteger expected =
+                Computations.of(clauseList).map(ComputeSolutionCountSAT4J::new).compute();
+        Assertions.assertEquals(expected, ddnnf.count());
+
+        // conditional counts partition the models
+        for (int variable = 1; variable <= ddnnf.getVariableCount(); variable++) {
+            Assertions.assertEquals(ddnnf.count(), ddnnf.count(variable).add(ddnnf.count(-variable)));
+        }
+        Assertions.assertEquals(BigInteger.ZERO, ddnnf.count(1, -1));
+
+        SolverSession session = new SolverSession(clauseList);
+        for (BooleanSolution sample : ddnnf.sample(new Random(0), 20, 2)) {
+            Assertions.assertEquals(2, sample.get(1));
+            Assertions.assertTrue(session.hasSolution(sample.get()).get());
+        }
+    }
+}
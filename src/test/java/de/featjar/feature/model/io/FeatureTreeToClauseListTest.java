@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.io.uvl.GroupEncoding;
+import de.featjar.feature.model.io.uvl.SymbolTable;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.UVLUtils;
+import de.featjar.feature.model.io.uvl.analysis.ClauseListPipeline;
+import de.featjar.feature.model.io.uvl.analysis.ConstraintEncoding;
+import de.featjar.feature.model.io.uvl.analysis.DDNNF;
+import de.featjar.feature.model.io.uvl.analysis.DDNNFCompiler;
+import de.featjar.feature.model.io.uvl.analysis.FeatureTreeToClauseList;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.structure.term.value.Variable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FeatureTreeToClauseListTest {
+
+    @Test
+    void testEquivalentToPipeline() {
+        IFeatureModel featureModel = IO.load(Paths.get("src/test/resources/uvl/gpl.uvl"), new UVLFeatureModelFormat())
+                .get();
+        BooleanClauseList direct = new FeatureTreeToClauseList().convert(featureModel).get();
+        BooleanClauseList generic = new ClauseListPipeline(featureModel).getClauseList();
+
+        DDNNF directDDNNF = new DDNNFCompiler(direct).compile().get();
+        DDNNF genericDDNNF = new DDNNFCompiler(generic).compile().get();
+        Assertions.assertEquals(genericDDNNF.count(), directDDNNF.count());
+
+        // every feature has the same number of solutions in both clause lists
+        for (int variable = 1; variable <= directDDNNF.getVariableCount(); variable++) {
+            String name = direct.getVariableMap().get(variable).get();
+            int genericVariable = generic.getVariableMap().get(name).get();
+            Assertions.assertEquals(genericDDNNF.count(genericVariable), directDDNNF.count(variable), name);
+        }
+    }
+
+    @Test
+    void testTseitinPreservesSolutions() {
+        IFeatureModel featureModel = IO.load(Paths.get("src/test/resources/uvl/gpl.uvl"), new UVLFeatureModelFormat())
+                .get();
+        BooleanClauseList distributive = new FeatureTreeToClauseList(ConstraintEncoding.DISTRIBUTIVE)
+                .convert(featureModel)
+                .get();
+        BooleanClauseList tseitin = new FeatureTreeToClauseList(ConstraintEncoding.TSEITIN)
+                .convert(featureModel)
+                .get();
+
+        DDNNF distributiveDDNNF = new DDNNFCompiler(distributive).compile().get();
+        DDNNF tseitinDDNNF = new DDNNFCompiler(tseitin).compile().get();
+        Assertions.assertEquals(distributiveDDNNF.count(), tseitinDDNNF.count());
+
+        // auxiliary variables are determined by the features, so no feature changes its number of solutions
+        for (int variable = 1; variable <= tseitinDDNNF.getVariableCount(); variable++) {
+            String name = tseitin.getVariableMap().get(variable).get();
+            if (UVLUtils.isAuxiliaryVariable(name)) {
+                Assertions.assertFalse(distributive.getVariableMap().get(name).isPresent(), name);
+                continue;
+            }
+            int distributiveVariable = distributive.getVariableMap().get(name).get();
+            Assertions.assertEquals(
+                    distributiveDDNNF.count(distributiveVariable), tseitinDDNNF.count(variable), name);
+        }
+    }
+
+    @Test
+    void testSharedSymbolTable() {
+        SymbolTable symbols = new SymbolTable();
+        IFeatureModel featureModel = new UVLFeatureModelFormat()
+                .parse(Paths.get("src/test/resources/uvl/gpl.uvl"), StandardCharsets.UTF_8, symbols)
+                .get();
+        int featureCount = symbols.size();
+        BooleanClauseList clauseList = new FeatureTreeToClauseList(ConstraintEncoding.DISTRIBUTIVE, symbols)
+                .convert(featureModel)
+                .get();
+
+        // the clause list numbers the variables like the parser did and adds no names
+        Assertions.assertEquals(featureCount, symbols.size());
+        Assertions.assertEquals(featureCount, clauseList.getVariableMap().getVariableCount());
+        for (int id = 1; id <= featureCount; id++) {
+            Assertions.assertEquals(
+                    symbols.getName(id).get(), clauseList.getVariableMap().get(id).get());
+        }
+
+        // literals in constraints use the same name instances as the features
+        for (IConstraint constraint : featureModel.getConstraints()) {
+            for (Variable variable : constraint.getFormula().getVariables()) {
+                String name = variable.getName();
+                Assertions.assertSame(symbols.canonicalize(name), name);
+            }
+        }
+    }
+
+    @Test
+    void testWideGroups(@TempDir Path directory) throws IOException {
+        int n = 40;
+        StringBuilder uvl = new StringBuilder("features\n\tRoot\n\t\tmandatory\n\t\t\tA\n\t\t\t\talternative\n");
+        for (int i = 1; i <= n; i++) {
+            uvl.append("\t\t\t\t\tA").append(i).append('\n');
+        }
+        uvl.append("\t\t\tC\n\t\t\t\t[2..5]\n");
+        for (int i = 1; i <= n; i++) {
+            uvl.append("\t\t\t\t\tC").append(i).append('\n');
+        }
+        Path path = directory.resolve("wide.uvl");
+        Files.write(path, uvl.toString().getBytes(StandardCharsets.UTF_8));
+        IFeatureModel featureModel = IO.load(path, new UVLFeatureModelFormat()).get();
+
+        BooleanClauseList clauseList = new FeatureTreeToClauseList(
+                        ConstraintEncoding.DISTRIBUTIVE, GroupEncoding.AUTOMATIC, null)
+                .convert(featureModel)
+                .get();
+
+        // 83 tree clauses, 156 ladder clauses and 856 counter clauses instead of 780 and millions of combinations
+        Assertions.assertEquals(1 + 82 + 2 + 156 + 856, clauseList.size());
+
+        // 40 choices in the alternative group times all selections of 2 to 5 out of 40 children
+        DDNNF ddnnf = new DDNNFCompiler(clauseList).compile().get();
+        BigInteger cardinalitySolutions = BigInteger.valueOf(780 + 9880 + 91390 + 658008);
+        Assertions.assertEquals(BigInteger.valueOf(n).multiply(cardinalitySolutions), ddnnf.count());
+
+        // auxiliary variables are determined by the features, so each child is selected in the expected solutions
+        int a1 = clauseList.getVariableMap().get("A1").get();
+        int c1 = clauseList.getVariableMap().get("C1").get();
+        Assertions.assertEquals(cardinalitySolutions, ddnnf.count(a1));
+        Assertions.assertEquals(
+                BigInteger.valueOf(n).multiply(BigInteger.valueOf(39 + 741 + 9139 + 82251)), ddnnf.count(c1));
+    }
+}
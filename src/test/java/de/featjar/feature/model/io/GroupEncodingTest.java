@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.analysis.sat4j.computation.ComputeSolutionCountSAT4J;
+import de.featjar.base.computation.Computations;
+import de.featjar.base.io.IO;
+import de.featjar.base.tree.Trees;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.io.uvl.GroupEncoding;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.UVLUtils;
+import de.featjar.feature.model.io.uvl.visitor.FeatureTreeToFormulaVisitor;
+import de.featjar.formula.assignment.ComputeBooleanClauseList;
+import de.featjar.formula.computation.ComputeCNFFormula;
+import de.featjar.formula.computation.ComputeNNFFormula;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.predicate.False;
+import de.featjar.formula.structure.predicate.Literal;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GroupEncodingTest {
+
+    private static IFormula[] createLiterals(int n) {
+        IFormula[] literals = new IFormula[n];
+        for (int i = 0; i < n; i++) {
+            literals[i] = new Literal("F" + i);
+        }
+        return literals;
+    }
+
+    private static BigInteger countSolutions(IFormula formula) {
+        return Computations.of(formula)
+                .map(ComputeNNFFormula::new)
+                .map(ComputeCNFFormula::new)
+                .map(ComputeBooleanClauseList::new)
+                .map(ComputeSolutionCountSAT4J::new)
+                .compute();
+    }
+
+    private static BigInteger countSolutions(Path directory, String uvl, GroupEncoding encoding) throws IOException {
+        Path path = directory.resolve("nested.uvl");
+        Files.write(path, uvl.getBytes(StandardCharsets.UTF_8));
+        IFeatureModel featureModel = IO.load(path, new UVLFeatureModelFormat()).get();
+        IFormula formula = Trees.traverse(featureModel.getRoots().get(0), new FeatureTreeToFormulaVisitor(encoding))
+                .get();
+        return countSolutions(formula);
+    }
+
+    private static String createNestedGroup(String group, int n) {
+        StringBuilder uvl = new StringBuilder("features\n\tRoot\n\t\tmandatory\n\t\t\tG\n\t\t\t\tor\n");
+        uvl.append("\t\t\t\t\tP\n\t\t\t\t\t\t").append(group).append('\n');
+        for (int i = 1; i <= n; i++) {
+            uvl.append("\t\t\t\t\t\t\tA").append(i).append('\n');
+        }
+        uvl.append("\t\t\t\t\tQ\n");
+        return uvl.toString();
+    }
+
+    @Test
+    void testAlternativeEncodings() {
+        for (int n : new int[] {1, 2, 3, 5, 12}) {
+            for (GroupEncoding encoding : GroupEncoding.values()) {
+                IFormula formula = UVLUtils.alternative(createLiterals(n), encoding, "group");
+                Assertions.assertEquals(BigInteger.valueOf(n), countSolutions(formula), encoding + " with " + n);
+            }
+        }
+    }
+
+    @Test
+    void testNestedAlternativeGroup(@TempDir Path directory) throws IOException {
+        // the optional feature P in an or-group does not constrain its children when it is deselected
+        String uvl = createNestedGroup("alternative", 12);
+        BigInteger expected = countSolutions(directory, uvl, GroupEncoding.BINOMIAL);
+        for (GroupEncoding encoding : GroupEncoding.values()) {
+            Assertions.assertEquals(expected, countSolutions(directory, uvl, encoding), encoding.name());
+        }
+    }
+
+    @Test
+    void testNestedCardinalityGroup(@TempDir Path directory) throws IOException {
+        Assertions.assertEquals(GroupEncoding.SEQUENTIAL_COUNTER, GroupEncoding.AUTOMATIC.forGroup(10, 2, 3));
+        String uvl = createNestedGroup("[2..3]", 10);
+        BigInteger expected = countSolutions(directory, uvl, GroupEncoding.BINOMIAL);
+        for (GroupEncoding encoding : GroupEncoding.values()) {
+            Assertions.assertEquals(expected, countSolutions(directory, uvl, encoding), encoding.name());
+        }
+    }
+
+    @Test
+    void testAuxiliaryNamesDoNotCollide() {
+        Set<String> names = new HashSet<>();
+        names.add(UVLUtils.getAuxiliaryVariableName(UVLUtils.COUNTER_ENCODER, UVLUtils.getAuxiliaryName("X"), "1_1"));
+        names.add(UVLUtils.getAuxiliaryVariableName(UVLUtils.LADDER_ENCODER, UVLUtils.getAuxiliaryName("X_1"), 1));
+        names.add(UVLUtils.getAuxiliaryVariableName(UVLUtils.LADDER_ENCODER, UVLUtils.getAuxiliaryName("P", "1"), 1));
+        names.add(UVLUtils.getAuxiliaryVariableName(UVLUtils.LADDER_ENCODER, UVLUtils.getAuxiliaryName("P_1"), 1));
+        names.add(UVLUtils.getAuxiliaryVariableName(UVLUtils.LADDER_ENCODER, UVLUtils.getAuxiliaryName("P#1"), 1));
+        names.add(UVLUtils.getAuxiliaryVariableName(UVLUtils.LADDER_ENCODER, UVLUtils.getAuxiliaryName("P\\", "1"), 1));
+        names.add(UVLUtils.getAuxiliaryVariableName(UVLUtils.LADDER_ENCODER, UVLUtils.getAuxiliaryName("tseitin"), 1));
+        names.add(UVLUtils.getAuxiliaryVariableName("tseitin", 1));
+        names.add(UVLUtils.getAuxiliaryVariableName("activation", 1));
+        Assertions.assertEquals(9, names.size());
+        names.forEach(name -> Assertions.assertTrue(UVLUtils.isAuxiliaryVariable(name)));
+    }
+
+    @Test
+    void testEmptyAlternative() {
+        Assertions.assertEquals(
+                False.INSTANCE, UVLUtils.alternative(new IFormula[0], GroupEncoding.SEQUENTIAL_COUNTER, "group"));
+    }
+
+    @Test
+    void testCardinalityEncodings() {
+        for (GroupEncoding encoding : GroupEncoding.values()) {
+            IFormula formula = UVLUtils.between(createLiterals(10), 2, 5, encoding, "group");
+            Assertions.assertEquals(BigInteger.valueOf(45 + 120 + 210 + 252), countSolutions(formula), encoding.name());
+            formula = UVLUtils.between(createLiterals(6), 4, -1, encoding, "group");
+            Assertions.assertEquals(BigInteger.valueOf(15 + 6 + 1), countSolutions(formula), encoding.name());
+            formula = UVLUtils.between(createLiterals(6), 0, 1, encoding, "group");
+            Assertions.assertEquals(BigInteger.valueOf(1 + 6), countSolutions(formula), encoding.name());
+        }
+    }
+
+    @Test
+    void testWideCardinalityGroup() {
+        Assertions.assertEquals(
+                GroupEncoding.SEQUENTIAL_COUNTER, GroupEncoding.AUTOMATIC.forGroup(40, 2, 5));
+        IFormula formula = UVLUtils.between(createLiterals(40), 2, 5, GroupEncoding.AUTOMATIC, "group");
+        Assertions.assertTrue(formula.getChildren().size() <= 40 * 6 + 2);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.UVLUtils;
+import de.featjar.feature.model.io.uvl.analysis.ConstraintEncoding;
+import de.featjar.feature.model.io.uvl.analysis.DDNNFCompiler;
+import de.featjar.feature.model.io.uvl.analysis.FeatureTreeToClauseList;
+import de.featjar.feature.model.io.uvl.analysis.IncrementalAnalysisSession;
+import de.featjar.feature.model.io.uvl.analysis.IncrementalAnalysisSession.Edit;
+import de.featjar.feature.model.io.uvl.analysis.SolverSession;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.predicate.Literal;
+import de.featjar.formula.structure.predicate.True;
+import java.math.BigInteger;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class IncrementalAnalysisSessionTest {
+
+    @Test
+    void testEditsMatchFreshAnalysis() {
+        IFeatureModel featureModel = load();
+        IncrementalAnalysisSession session = new IncrementalAnalysisSession(featureModel, ConstraintEncoding.TSEITIN);
+        assertSameResults(load(), session);
+
+        // making a feature mandatory is equivalent to a constraint from its parent to the feature
+        Assertions.assertTrue(session.apply(Edit.setMandatory("WeightedWithEdges")).isEmpty());
+        IFeatureModel mandatory = load();
+        mandatory.mutate().addConstraint(new Implies(new Literal("WeightOptions"), new Literal("WeightedWithEdges")));
+        assertSameResults(mandatory, session);
+
+        Assertions.assertTrue(session.apply(Edit.setOptional("WeightedWithEdges")).isEmpty());
+        assertSameResults(load(), session);
+
+        // removing and adding constraints
+        IFormula removed = featureModel.getConstraints().iterator().next().getFormula();
+        Assertions.assertTrue(session.apply(Edit.removeConstraint(removed)).isEmpty());
+        IFeatureModel withoutConstraint = load();
+        IConstraint first = withoutConstraint.getConstraints().iterator().next();
+        withoutConstraint.mutate().removeConstraint(first);
+        assertSameResults(withoutConstraint, session);
+
+        IFormula added = new Implies(new Literal("Number"), new Literal("BFS"));
+        Assertions.assertTrue(session.apply(Edit.addConstraint(added)).isEmpty());
+        withoutConstraint.mutate().addConstraint(new Implies(new Literal("Number"), new Literal("BFS")));
+        assertSameResults(withoutConstraint, session);
+
+        // adding the same constraint twice is rejected and leaves the model unchanged
+        Assertions.assertFalse(session.apply(Edit.addConstraint(added)).isEmpty());
+        Assertions.assertTrue(session.apply(Edit.removeConstraint(added)).isEmpty());
+        Assertions.assertFalse(session.apply(Edit.removeConstraint(added)).isEmpty());
+
+        Assertions.assertFalse(session.apply(Edit.removeConstraint(
+                        new Implies(new Literal("Number"), new Literal("BFS"))))
+                .isEmpty());
+    }
+
+    @Test
+    void testRemoveFirstConstraintWithTrue() {
+        IncrementalAnalysisSession session = new IncrementalAnalysisSession(load(), ConstraintEncoding.TSEITIN);
+        IFormula first = new Implies(new Literal("Number"), new And(new Literal("BFS"), True.INSTANCE));
+        IFormula second = new Implies(new Literal("Connected"), new And(new Literal("BFS"), True.INSTANCE));
+        Assertions.assertTrue(session.apply(Edit.addConstraint(first)).isEmpty());
+        Assertions.assertTrue(session.apply(Edit.addConstraint(second)).isEmpty());
+        Assertions.assertTrue(session.apply(Edit.removeConstraint(first)).isEmpty());
+
+        // the second constraint still forces the auxiliary variable of true
+        IFeatureModel expected = load();
+        expected.mutate().addConstraint(new Implies(new Literal("Connected"), new Literal("BFS")));
+        assertSameResults(expected, session);
+    }
+
+    @Test
+    void testFewerQueriesThanFreshAnalysis() {
+        IncrementalAnalysisSession session = new IncrementalAnalysisSession(load(), ConstraintEncoding.TSEITIN);
+        int initialQueries = session.getQueryCount();
+        session.apply(Edit.setMandatory("WeightedWithEdges"));
+        Assertions.assertTrue(session.getQueryCount() - initialQueries < initialQueries);
+    }
+
+    private static IFeatureModel load() {
+        return IO.load(Paths.get("src/test/resources/uvl/gpl.uvl"), new UVLFeatureModelFormat())
+                .get();
+    }
+
+    /**
+     * Compares the session with a fresh analysis of the edited model, which is converted without auxiliary
+     * variables and analyzed by a new solver and the d-DNNF compiler.
+     */
+    private static void assertSameResults(IFeatureModel expected, IncrementalAnalysisSession actual) {
+        BooleanClauseList clauseList = new FeatureTreeToClauseList(ConstraintEncoding.DISTRIBUTIVE)
+                .convert(expected)
+                .get();
+        VariableMap variableMap = clauseList.getVariableMap();
+        SolverSession solver = new SolverSession(clauseList);
+        Assertions.assertTrue(solver.hasSolution().get());
+        Assertions.assertTrue(actual.isSatisfiable());
+
+        Set<String> expectedNames = new HashSet<>();
+        for (int literal : solver.computeCoreAndDead().get().get()) {
+            String name = variableMap.get(Math.abs(literal)).get();
+            if (!UVLUtils.isAuxiliaryVariable(name)) {
+                expectedNames.add(literal > 0 ? name : "-" + name);
+            }
+        }
+        Set<String> actualNames = new HashSet<>();
+        for (int literal : actual.getCoreAndDeadFeatures().get()) {
+            String name = actual.getSymbols().getName(Math.abs(literal)).get();
+            actualNames.add(literal > 0 ? name : "-" + name);
+        }
+        Assertions.assertEquals(expectedNames, actualNames);
+
+        BigInteger expectedCount = new DDNNFCompiler(clauseList, variableMap.getVariableCount())
+                .compile()
+                .get()
+                .count();
+        Assertions.assertEquals(expectedCount, actual.getSolutionCount());
+    }
+}
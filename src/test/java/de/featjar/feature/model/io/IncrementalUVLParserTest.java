@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.io.uvl.IncrementalUVLParser;
+import de.featjar.feature.model.io.uvl.SymbolTable;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.term.value.Variable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class IncrementalUVLParserTest {
+
+    @Test
+    void testReuseUnchangedParts() throws IOException {
+        String content = new String(
+                Files.readAllBytes(Path.of("src", "test", "resources", "uvl", "gpl.uvl")), StandardCharsets.UTF_8);
+        IncrementalUVLParser parser = new IncrementalUVLParser();
+        IFeatureModel featureModel = parser.parse(content).get();
+        Assertions.assertEquals(16, featureModel.getConstraints().size());
+        Assertions.assertEquals(16, parser.getParsedConstraintCount());
+
+        // editing a constraint keeps the feature tree and all other constraints
+        String editedConstraint = content.replace("Cycle => Gtp & DFS", "Cycle => Gtp & BFS");
+        IFeatureModel edited = parser.parse(editedConstraint).get();
+        Assertions.assertSame(featureModel, edited);
+        Assertions.assertTrue(parser.isFeatureTreeReused());
+        Assertions.assertEquals(15, parser.getReusedConstraintCount());
+        Assertions.assertEquals(1, parser.getParsedConstraintCount());
+        Assertions.assertEquals(16, edited.getConstraints().size());
+
+        // editing a feature parses the feature section again, but reuses the constraint formulas
+        Set<IFormula> formulas = getFormulas(edited);
+        IFeatureModel renamed = parser.parse(editedConstraint.replace("TestProg", "TestProgram")).get();
+        Assertions.assertFalse(parser.isFeatureTreeReused());
+        Assertions.assertEquals(16, parser.getReusedConstraintCount());
+        Assertions.assertEquals(0, parser.getParsedConstraintCount());
+        Assertions.assertTrue(renamed.getFeature("TestProgram").isPresent());
+        for (IConstraint constraint : renamed.getConstraints()) {
+            Assertions.assertTrue(formulas.stream().anyMatch(formula -> formula == constraint.getFormula()));
+        }
+    }
+
+    @Test
+    void testEqualToFullParse() throws IOException {
+        String content = new String(
+                Files.readAllBytes(Path.of("src", "test", "resources", "uvl", "gpl.uvl")), StandardCharsets.UTF_8);
+        SymbolTable symbols = new SymbolTable();
+        IncrementalUVLParser parser = new IncrementalUVLParser(symbols);
+        parser.parse(content).get();
+
+        // an edited constraint is converted like in a full parse and uses the feature names of the symbol table
+        String editedConstraint = content.replace("Cycle => Gtp & DFS", "Cycle => Gtp & BFS");
+        IFeatureModel edited = parser.parse(editedConstraint).get();
+        Assertions.assertTrue(parser.isFeatureTreeReused());
+        Assertions.assertEquals(0, parser.getParsedFeatureLineCount());
+        Assertions.assertTrue(parser.getParseNanos() > 0);
+        assertEqualModels(editedConstraint, edited);
+        for (IConstraint constraint : edited.getConstraints()) {
+            for (Variable variable : constraint.getFormula().getVariables()) {
+                Assertions.assertSame(symbols.canonicalize(variable.getName()), variable.getName());
+            }
+        }
+
+        // a feature added below Alg parses only the subtree of Alg
+        String addedFeature = editedConstraint.replace(
+                "\t\t\t\t\t\t\tMSTKruskal\n", "\t\t\t\t\t\t\tMSTKruskal\n\t\t\t\t\t\t\tBellmanFord\n");
+        IFeatureModel added = parser.parse(addedFeature).get();
+        Assertions.assertFalse(parser.isFeatureTreeReused());
+        Assertions.assertEquals(12, parser.getParsedFeatureLineCount());
+        Assertions.assertEquals(16, parser.getReusedConstraintCount());
+        Assertions.assertTrue(added.getFeature("BellmanFord").isPresent());
+        assertEqualModels(addedFeature, added);
+
+        // edits of both sections at once
+        String editedBoth = addedFeature
+                .replace("\t\t\t\t\tTestProg\n", "\t\t\t\t\tTestProgram\n")
+                .replace("Number => Gtp & Src", "Number | BellmanFord => Gtp & Src");
+        IFeatureModel both = parser.parse(editedBoth).get();
+        Assertions.assertEquals(1, parser.getParsedConstraintCount());
+        assertEqualModels(editedBoth, both);
+    }
+
+    /**
+     * Asserts that the feature model equals the one of a full parse, regardless of the order of the constraints.
+     */
+    private static void assertEqualModels(String content, IFeatureModel featureModel) {
+        UVLFeatureModelFormat format = new UVLFeatureModelFormat();
+        IFeatureModel expected = new IncrementalUVLParser().parse(content).get();
+        Assertions.assertEquals(
+                normalize(format.serialize(expected).get()),
+                normalize(format.serialize(featureModel).get()));
+    }
+
+    private static List<String> normalize(String uvl) {
+        List<String> lines = new ArrayList<>(Arrays.asList(uvl.split("\n")));
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).strip().equals("constraints")) {
+                lines.subList(i + 1, lines.size()).sort(null);
+                break;
+            }
+        }
+        return lines;
+    }
+
+    private static Set<IFormula> getFormulas(IFeatureModel featureModel) {
+        return featureModel.getConstraints().stream()
+                .map(IConstraint::getFormula)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.analysis.sat4j.computation.ComputeSolutionCountSAT4J;
+import de.featjar.base.computation.Computations;
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.analysis.ClauseListPipeline;
+import de.featjar.feature.model.io.uvl.analysis.SolutionEnumerator;
+import de.featjar.formula.assignment.BooleanClauseList;
+import java.math.BigInteger;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SolutionEnumeratorTest {
+
+    private static BooleanClauseList loadClauseList() {
+        IFeatureModel featureModel = IO.load(Paths.get("src/test/resources/uvl/gpl.uvl"), new UVLFeatureModelFormat())
+                .get();
+        return new ClauseListPipeline(featureModel).getClauseList();
+    }
+
+    @Test
+    void testLimit() {
+        SolutionEnumerator enumerator = new SolutionEnumerator(loadClauseList(), 5, 0);
+        long distinct = enumerator.stream()
+                .map(solution -> Arrays.toString(solution.get()))
+                .collect(Collectors.toSet())
+                .size();
+
+        Assertions.assertEquals(5, distinct);
+        Assertions.assertEquals(5, enumerator.getCount());
+        Assertions.assertFalse(enumerator.isComplete());
+        Assertions.assertFalse(enumerator.isTimedOut());
+    }
+
+    @Test
+    void testLimitEqualToCount() {
+        BooleanClauseList clauseList = loadClauseList();
+        long expected = Computations.of(clauseList)
+                .map(ComputeSolutionCountSAT4J::new)
+                .compute()
+                .longValueExact();
+        SolutionEnumerator enumerator = new SolutionEnumerator(clauseList, expected, 0);
+        enumerator.forEachRemaining(solution -> {});
+
+        Assertions.assertEquals(expected, enumerator.getCount());
+        Assertions.assertTrue(enumerator.isComplete());
+
+        SolutionEnumerator smallerEnumerator = new SolutionEnumerator(clauseList, expected - 1, 0);
+        smallerEnumerator.forEachRemaining(solution -> {});
+        Assertions.assertEquals(expected - 1, smallerEnumerator.getCount());
+        Assertions.assertFalse(smallerEnumerator.isComplete());
+    }
+
+    @Test
+    void testCompleteEnumerationMatchesCount() {
+        BooleanClauseList clauseList = loadClauseList();
+        SolutionEnumerator enumerator = new SolutionEnumerator(clauseList);
+        enumerator.forEachRemaining(solution -> {});
+
+        BigInteger expected =
+                Computations.of(clauseList).map(ComputeSolutionCountSAT4J::new).compute();
+        Assertions.assertTrue(enumerator.isComplete());
+        Assertions.assertEquals(expected.longValueExact(), enumerator.getCount());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.analysis.sat4j.computation.ComputeCoreSAT4J;
+import de.featjar.base.computation.Computations;
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.analysis.AnalysisBudget;
+import de.featjar.feature.model.io.uvl.analysis.ClauseListPipeline;
+import de.featjar.feature.model.io.uvl.analysis.SolverSession;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SolverSessionTest {
+
+    @Test
+    void testCoreAndDeadMatchesSAT4J() {
+        IFeatureModel featureModel = IO.load(Paths.get("src/test/resources/uvl/gpl.uvl"), new UVLFeatureModelFormat())
+                .get();
+        BooleanClauseList clauseList = new ClauseListPipeline(featureModel).getClauseList();
+        SolverSession session = new SolverSession(clauseList);
+
+        Assertions.assertTrue(session.hasSolution().get());
+        BooleanAssignment expected =
+                Computations.of(clauseList).map(ComputeCoreSAT4J::new).compute();
+        Assertions.assertEquals(toSet(expected), toSet(session.computeCoreAndDead().get()));
+
+        // assumptions only hold for a single query
+        int root = expected.get(0);
+        Assertions.assertFalse(session.hasSolution(-root).get());
+        Assertions.assertTrue(session.hasSolution().get());
+    }
+
+    @Test
+    void testAtomicSets() {
+        BooleanClauseList clauseList = new BooleanClauseList(new VariableMap(List.of("A", "B", "C", "D", "E", "F")));
+        // A <=> B, C => A, E is core, F <=> !A, D is free
+        clauseList.add(new BooleanClause(-1, 2));
+        clauseList.add(new BooleanClause(1, -2));
+        clauseList.add(new BooleanClause(-3, 1));
+        clauseList.add(new BooleanClause(5));
+        clauseList.add(new BooleanClause(6, 1));
+        clauseList.add(new BooleanClause(-6, -1));
+        SolverSession session = new SolverSession(clauseList);
+
+        List<BooleanAssignment> atomicSets = session.computeAtomicSets(
+                        new int[0], new int[] {1, 2, 3, 4, 5, 6}, AnalysisBudget.unlimited())
+                .get();
+        Assertions.assertEquals(Set.of(5), toSet(atomicSets.get(0)));
+        Set<Set<Integer>> others = new HashSet<>();
+        for (BooleanAssignment atomicSet : atomicSets.subList(1, atomicSets.size())) {
+            // the literals of an atomic set may be negated as a whole, depending on the first solution
+            Set<Integer> literals = toSet(atomicSet);
+            boolean negated = literals.contains(-1) || literals.contains(-3) || literals.contains(-4);
+            others.add(negated ? negate(literals) : literals);
+        }
+        Assertions.assertEquals(Set.of(Set.of(1, 2, -6), Set.of(3), Set.of(4)), others);
+    }
+
+    private static Set<Integer> negate(Set<Integer> literals) {
+        Set<Integer> negated = new HashSet<>();
+        for (int literal : literals) {
+            negated.add(-literal);
+        }
+        return negated;
+    }
+
+    private static Set<Integer> toSet(BooleanAssignment assignment) {
+        Set<Integer> literals = new HashSet<>();
+        for (int i = 0; i < assignment.size(); i++) {
+            literals.add(assignment.get(i));
+        }
+        return literals;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-uvl.
+ *
+ * uvl is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * uvl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with uvl. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-uvl> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import de.featjar.feature.model.io.uvl.UVLBatchLoader;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class UVLBatchLoaderTest {
+
+    @Test
+    void testLoadDirectory() throws IOException {
+        UVLBatchLoader.BatchResult result = new UVLBatchLoader(2).load(Path.of("src", "test", "resources", "uvl"));
+
+        Assertions.assertEquals(3, result.getFiles().size());
+        Assertions.assertEquals(3, result.getResults().size());
+        Assertions.assertEquals(0, result.getFailureCount());
+        Assertions.assertEquals(
+                "featureModelSerializeResult.uvl",
+                result.getFiles().get(0).getFileName().toString());
+        Assertions.assertTrue(
+                result.getResults().get(0).get().getFeature("Test7").isPresent());
+    }
+}
@@ -24,13 +24,16 @@ import de.featjar.FormatTest;
 import de.featjar.analysis.sat4j.computation.ComputeSatisfiableSAT4J;
 import de.featjar.base.FeatJAR;
 import de.featjar.base.computation.Computations;
+import de.featjar.base.data.Problem;
 import de.featjar.base.data.Result;
 import de.featjar.base.data.identifier.Identifiers;
 import de.featjar.base.io.format.IFormat;
 import de.featjar.base.io.input.FileInputMapper;
 import de.featjar.base.io.input.StringInputMapper;
+import de.featjar.base.tree.Trees;
 import de.featjar.feature.model.*;
 import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.visitor.FeatureTreeToUVLFeatureModelVisitor;
 import de.featjar.formula.assignment.ComputeBooleanClauseList;
 import de.featjar.formula.computation.ComputeCNFFormula;
 import de.featjar.formula.computation.ComputeNNFFormula;
@@ -38,12 +41,16 @@ import de.featjar.formula.structure.IFormula;
 import de.featjar.formula.structure.connective.*;
 import de.featjar.formula.structure.predicate.Literal;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -206,6 +213,100 @@ public class UVLFeatureModelFormatTest {
         Assertions.assertFalse(notEquivalent);
     }
     
+    @Test
+    void testUVLConstraintsParse() throws IOException {
+        IFormat<IFeatureModel> format = new UVLFeatureModelFormat();
+        Result<IFeatureModel> result = format.parse(
+                new FileInputMapper(Path.of("src", "test", "resources", "uvl", "gpl.uvl"), StandardCharsets.UTF_8));
+
+        Assertions.assertTrue(result.isPresent(), "Parsing of UVL file failed");
+        List<IFormula> constraints = result.get().getConstraints().stream()
+                .map(IConstraint::getFormula)
+                .collect(Collectors.toList());
+        Assertions.assertEquals(16, constraints.size());
+        Assertions.assertEquals(
+                7, constraints.stream().filter(f -> f instanceof Implies).count());
+        Assertions.assertEquals(
+                9, constraints.stream().filter(f -> f instanceof BiImplies).count());
+    }
+
+    @Test
+    void testUVLFeatureModelFormatWrite() throws IOException {
+        UVLFeatureModelFormat format = new UVLFeatureModelFormat();
+        StringWriter writer = new StringWriter();
+        List<Problem> problems = format.write(featureModel, writer);
+        Assertions.assertTrue(problems.stream().noneMatch(p -> p.getSeverity() == Problem.Severity.ERROR));
+
+        Result<IFeatureModel> result =
+                format.parse(new StringInputMapper(writer.toString(), StandardCharsets.UTF_8, "uvl"));
+        Assertions.assertTrue(result.isPresent(), "Parsing of written UVL failed");
+
+        IFeatureModel parsedFeatureModel = result.get();
+        Assertions.assertTrue(
+                parsedFeatureModel.getFeature("Test3").get().getFeatureTree().get().getParent().isPresent());
+        Assertions.assertTrue(
+                parsedFeatureModel.getFeature("Test7").get().getFeatureTree().get().isMandatory());
+        Assertions.assertTrue(
+                parsedFeatureModel.getFeature("Test1").get().getFeatureTree().get().isOptional());
+        Assertions.assertEquals(1, parsedFeatureModel.getConstraints().size());
+
+        IFormula constraint =
+                parsedFeatureModel.getConstraints().iterator().next().getFormula();
+        IFormula constraint2 = featureModel.getConstraints().iterator().next().getFormula();
+        Boolean notEquivalent = Computations.of((IFormula) new Not(new BiImplies(constraint, constraint2)))
+                .map(ComputeNNFFormula::new)
+                .map(ComputeCNFFormula::new)
+                .map(ComputeBooleanClauseList::new)
+                .map(ComputeSatisfiableSAT4J::new)
+                .compute();
+        Assertions.assertFalse(notEquivalent);
+    }
+
+    @Test
+    void testUVLFeatureModelFormatWriteNamespacedFeature() throws IOException {
+        FeatureModel namespacedFeatureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree rootTree = namespacedFeatureModel
+                .mutate()
+                .addFeatureTreeRoot(namespacedFeatureModel.mutate().addFeature("root"));
+        rootTree.mutate().setAnd();
+        IFeatureTree namespacedTree =
+                rootTree.mutate().addFeatureBelow(namespacedFeatureModel.mutate().addFeature("sub::Child"));
+        namespacedTree.mutate().addFeatureBelow(namespacedFeatureModel.mutate().addFeature("Grandchild"));
+        IFeatureTree plainTree =
+                rootTree.mutate().addFeatureBelow(namespacedFeatureModel.mutate().addFeature("Plain"));
+        plainTree.mutate().setMandatory();
+
+        UVLFeatureModelFormat format = new UVLFeatureModelFormat();
+        StringWriter writer = new StringWriter();
+        List<Problem> problems = format.write(namespacedFeatureModel, writer);
+        Assertions.assertTrue(problems.stream().noneMatch(p -> p.getSeverity() == Problem.Severity.ERROR));
+        Assertions.assertFalse(writer.toString().contains("sub::Child\" {"), writer.toString());
+
+        Result<IFeatureModel> written =
+                format.parse(new StringInputMapper(writer.toString(), StandardCharsets.UTF_8, "uvl"));
+        Result<IFeatureModel> serialized = format.parse(
+                new StringInputMapper(format.serialize(namespacedFeatureModel).get(), StandardCharsets.UTF_8, "uvl"));
+        Assertions.assertTrue(written.isPresent(), "Parsing of written UVL failed");
+        Assertions.assertTrue(serialized.isPresent(), "Parsing of serialized UVL failed");
+        Assertions.assertEquals(describeTree(serialized.get()), describeTree(written.get()));
+    }
+
+    private static List<String> describeTree(IFeatureModel featureModel) {
+        List<String> nodes = new ArrayList<>();
+        LinkedList<IFeatureTree> stack = new LinkedList<>(featureModel.getRoots());
+        while (!stack.isEmpty()) {
+            IFeatureTree node = stack.pop();
+            nodes.add(node.getFeature().getName().get()
+                    + (node.isMandatory() ? " mandatory" : " optional")
+                    + node.getParent().map(parent -> " below " + parent.getFeature().getName().get()).orElse(""));
+            List<? extends IFeatureTree> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+        return nodes;
+    }
+
     @Test
     void testUVLFileToFeatureModelToUVLFile() throws IOException {
 
@@ -227,6 +328,40 @@ public class UVLFeatureModelFormatTest {
         Assertions.assertTrue(Objects.equals(fileContent.replaceAll("\\r", ""), serializedContent.replaceAll("\\r", "")), "Serialized content does not match the original file content");
     }
     
+    @Test
+    void testParallelConversion() {
+        FeatureModel wideFeatureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree rootTree =
+                wideFeatureModel.mutate().addFeatureTreeRoot(wideFeatureModel.mutate().addFeature("root"));
+        for (int i = 0; i < 40; i++) {
+            IFeatureTree childTree = rootTree.mutate().addFeatureBelow(wideFeatureModel.mutate().addFeature("F" + i));
+            if (i % 3 == 0) {
+                childTree.mutate().setMandatory();
+            }
+            if (i % 2 == 0) {
+                childTree.mutate().setAlternative();
+            }
+            for (int j = 0; j < 100; j++) {
+                childTree.mutate().addFeatureBelow(wideFeatureModel.mutate().addFeature("F" + i + "_" + j));
+            }
+        }
+
+        Result<de.vill.model.FeatureModel> sequential =
+                Trees.traverse(rootTree, new FeatureTreeToUVLFeatureModelVisitor());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Result<de.vill.model.FeatureModel> parallel =
+                    new FeatureTreeToUVLFeatureModelVisitor().convert(rootTree, pool);
+            Assertions.assertTrue(parallel.isPresent());
+            Assertions.assertEquals(
+                    sequential.get().getFeatureMap().size(),
+                    parallel.get().getFeatureMap().size());
+            Assertions.assertEquals(sequential.get().toString(), parallel.get().toString());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     //@Test
     //TODO: Constraints after parsing are wrong
     void testFeatureModeltoUVLtoFeatureModel() throws IOException {